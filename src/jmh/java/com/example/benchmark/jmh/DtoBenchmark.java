@@ -0,0 +1,144 @@
+package com.example.benchmark.jmh;
+
+import com.example.benchmark.dto.QueryResponse;
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.InstallationStatus;
+import com.example.benchmark.model.LatencyStats;
+import com.example.benchmark.model.Query;
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.RunSummary;
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Version;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/* The response of GET /query/{name}: mapping a page of versions to DTOs and writing it as JSON.
+ * Every version has a run on each of two installations. Without summaries the version status is
+ * calculated from the runs, as for the versions stored before the summary was introduced */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoBenchmark {
+
+    private static final int RUNS_PER_VERSION = 2;
+
+    @Param({"10", "1000", "100000"})
+    public int runs;
+
+    @Param({"true", "false"})
+    public boolean summaries;
+
+    private Query query;
+
+    private List<Version> versions;
+
+    private QueryResponse response;
+
+    // configured like the one of the application
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        query = new Query(1L, "selectAll");
+        List<Installation> installations = new ArrayList<>(RUNS_PER_VERSION);
+        for (long i = 1; i <= RUNS_PER_VERSION; i++) {
+            installations.add(new Installation(i, "jdbc:mysql://localhost:330" + i + "/benchmark", "com.mysql.jdbc.Driver",
+                    "root", "root", 2, 1, 10_000, null, true, InstallationStatus.ACTIVE, LocalDateTime.now()));
+        }
+        versions = new ArrayList<>(runs / RUNS_PER_VERSION);
+        long runId = 0;
+        for (long id = 1; id <= runs / RUNS_PER_VERSION; id++) {
+            Version version = new Version(id, "SELECT t.* FROM benchmark.test_table t WHERE t.id BETWEEN 10 AND 1000",
+                    null, LocalDateTime.now(), query, new ArrayList<>(), new RunOptions(), null, null, null,
+                    summaries ? new RunSummary(Status.DONE, RUNS_PER_VERSION, 0, 0, RUNS_PER_VERSION, 0, 0, 0, 0, 12L, 15L) : null,
+                    null);
+            for (Installation installation : installations) {
+                version.getRuns().add(run(++runId, installation, version));
+            }
+            versions.add(version);
+        }
+        response = new QueryResponse(query, versions);
+    }
+
+    @Benchmark
+    public QueryResponse map() {
+        return new QueryResponse(query, versions);
+    }
+
+    @Benchmark
+    public long serialize() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        mapper.writeValue(out, response);
+        return out.count;
+    }
+
+    @Benchmark
+    public long mapAndSerialize() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        mapper.writeValue(out, new QueryResponse(query, versions));
+        return out.count;
+    }
+
+    private static Run run(long id, Installation installation, Version version) {
+        Run run = new Run(installation, Status.DONE, version);
+        run.setId(id);
+        run.setWorkTime(12L + id % 4);
+        run.setStats(new LatencyStats(10, 11_000_000L, 12_400_000L, 12_100_000L, 13_900_000L, 15_200_000L,
+                15_300_000L, 1_150_000.5));
+        run.setConnectionAcquireTime(25_000L);
+        run.setFirstRowTime(9_800_000L);
+        run.setFetchTime(2_600_000L);
+        run.setRowCount(991L);
+        run.setBytesRead(31_712L);
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("Handler_read_key", 1L);
+        counters.put("Handler_read_next", 991L);
+        counters.put("ps.rows_examined", 991L);
+        counters.put("ps.rows_sent", 991L);
+        run.setCounters(counters);
+        return run;
+    }
+
+    // the response is written to the client as it is serialized, it isn't kept in memory
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
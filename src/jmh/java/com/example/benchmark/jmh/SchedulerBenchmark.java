@@ -0,0 +1,69 @@
+package com.example.benchmark.jmh;
+
+import com.example.benchmark.service.RunScheduler;
+import com.example.benchmark.service.SubmissionSequencer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/* Dispatch latency of a run: the time from its submission till it starts on an idle installation executor,
+ * directly and through the submission sequencer that keeps the order of the versions */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+
+    private static final long INSTALLATION_ID = 1;
+
+    @Param({"1", "4"})
+    public int concurrency;
+
+    private RunScheduler scheduler;
+
+    private SubmissionSequencer sequencer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scheduler = new RunScheduler(new SimpleMeterRegistry());
+        scheduler.add(INSTALLATION_ID, concurrency, RunScheduler.DEFAULT_QUEUE_CAPACITY);
+        sequencer = new SubmissionSequencer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sequencer.shutdown();
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void submit() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(INSTALLATION_ID, started::countDown);
+        started.await();
+    }
+
+    @Benchmark
+    public void sequencedSubmit() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        long ticket = sequencer.ticket();
+        sequencer.dispatch(ticket, () -> scheduler.submit(INSTALLATION_ID, started::countDown));
+        started.await();
+    }
+}
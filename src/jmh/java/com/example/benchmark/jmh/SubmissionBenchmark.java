@@ -0,0 +1,131 @@
+package com.example.benchmark.jmh;
+
+import com.example.benchmark.config.SwaggerConfig;
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.Query;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.Version;
+import com.example.benchmark.service.InstallationRegistry;
+import com.example.benchmark.service.QueryServiceImpl;
+import com.example.benchmark.service.RunControls;
+import com.example.benchmark.service.RunJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* Submissions of new versions by concurrent clients: the query lookup under the createOrUpdate lock,
+ * the version and run inserts and the hand over to the sequencer. The application runs with an in-memory
+ * H2 database and two H2 installations, which execute the submitted runs in the background.
+ * Every iteration starts with empty queues and a new query, so it measures the steady cost of a submission
+ * rather than queue rejections and a growing application DB.
+ * The number of clients is the number of benchmark threads, e.g. -t 16 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SubmissionBenchmark {
+
+    private static final String SQL = "SELECT 1";
+
+    private ConfigurableApplicationContext context;
+
+    private QueryServiceImpl service;
+
+    private Query query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--app.datasource.driver-class-name=org.h2.Driver",
+                        "--app.datasource.jdbc-url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--app.datasource.username=sa",
+                        "--app.datasource.password=sa",
+                        "--spring.data.driver-class-name[0]=org.h2.Driver",
+                        "--spring.data.url[0]=jdbc:h2:mem:installation0;DB_CLOSE_DELAY=-1",
+                        "--spring.data.username[0]=sa",
+                        "--spring.data.password[0]=sa",
+                        "--spring.data.driver-class-name[1]=org.h2.Driver",
+                        "--spring.data.url[1]=jdbc:h2:mem:installation1;DB_CLOSE_DELAY=-1",
+                        "--spring.data.username[1]=sa",
+                        "--spring.data.password[1]=sa",
+                        // the submissions of an iteration outpace the runs, none of them may be rejected
+                        "--spring.data.queue-capacity[0]=1000000",
+                        "--spring.data.queue-capacity[1]=1000000",
+                        // every submission is measured, the same version isn't reused
+                        "--benchmark.dedupe.fresh-for=0",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.benchmark=ERROR");
+        service = context.getBean(QueryServiceImpl.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        InstallationRegistry registry = context.getBean(InstallationRegistry.class);
+        registry.getActive().forEach(installation -> registry.remove(installation.getId()));
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void createQuery() {
+        query = service.createOrUpdateQuery("selectOne", SQL);
+    }
+
+    /* The runs submitted by the iteration are finished and deleted with their query */
+    @TearDown(Level.Iteration)
+    public void deleteQuery() throws InterruptedException {
+        RunControls runControls = context.getBean(RunControls.class);
+        List<Installation> installations = context.getBean(InstallationRegistry.class).getActive();
+        while (installations.stream().anyMatch(installation -> !runControls.getByInstallation(installation.getId()).isEmpty())) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        context.getBean(RunJournal.class).awaitFlush();
+        service.deleteQuery(query.getId());
+    }
+
+    @Benchmark
+    public Version submit() {
+        return service.submitQuery(query.getName(), SQL, null, null, new RunOptions());
+    }
+
+    @Benchmark
+    public Version measure() {
+        return service.measureQuery(query, SQL, null, null, new RunOptions());
+    }
+
+    // the test classes aren't scanned, their configuration replaces the installations, and there is no web layer
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @ComponentScan(basePackages = {"com.example.benchmark.component", "com.example.benchmark.config",
+            "com.example.benchmark.service"},
+            excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = SwaggerConfig.class))
+    @EntityScan("com.example.benchmark.model")
+    @EnableJpaRepositories("com.example.benchmark.dao")
+    static class Application {
+    }
+}
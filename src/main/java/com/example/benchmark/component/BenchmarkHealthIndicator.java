@@ -1,14 +1,35 @@
 package com.example.benchmark.component;
 
+import com.example.benchmark.service.InstallationHealth;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthAggregator;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* Health of every DB installation, the benchmark is down if any of them is down.
+ * The installations are read on every check as they come and go at runtime */
 @Component
 class BenchmarkHealthIndicator implements HealthIndicator {
 
+    private final HealthAggregator healthAggregator;
+
+    private final InstallationHealth installationHealth;
+
+    @Autowired
+    BenchmarkHealthIndicator(HealthAggregator healthAggregator, InstallationHealth installationHealth) {
+        this.healthAggregator = healthAggregator;
+        this.installationHealth = installationHealth;
+    }
+
     @Override
     public Health health() {
-        return Health.status("Okay!").build();
+        Map<String, Health> healths = new LinkedHashMap<>();
+        installationHealth.getInstallationIds().forEach(id ->
+                healths.put(String.format("installation-%d", id), installationHealth.health(id)));
+        return healthAggregator.aggregate(healths);
     }
-}
\ No newline at end of file
+}
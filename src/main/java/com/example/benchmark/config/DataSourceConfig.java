@@ -1,5 +1,10 @@
 package com.example.benchmark.config;
 
+import com.example.benchmark.service.RunScheduler;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
@@ -8,14 +13,26 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.IntStream;
 
+import static com.example.benchmark.config.PropConfig.get;
+
 @Configuration
 public class DataSourceConfig {
 
+    private static final int DEFAULT_POOL_SIZE = 2;
+    private static final long DEFAULT_CONNECTION_TIMEOUT = 30_000;
+    private static final long DEFAULT_VALIDATION_TIMEOUT = 5_000;
+    // seconds to wait for a connection while warming up a pool
+    private static final int WARM_UP_VALIDATION_TIMEOUT = 5;
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
     @Bean
     @ConfigurationProperties("app.datasource")
     public DataSource appDataSource() {
@@ -31,15 +48,88 @@ public class DataSourceConfig {
         int nSources = propConfig.getDriverClassName().size();
         List<JdbcTemplate> sources = new ArrayList<>(nSources);
         IntStream.range(0, nSources)
-                .forEach(idx ->
-                        sources.add(new JdbcTemplate(DataSourceBuilder
-                                .create()
-                                .driverClassName(propConfig.getDriverClassName().get(idx))
-                                .url(propConfig.getUrl().get(idx))
-                                .username(propConfig.getUsername().get(idx))
-                                .password(propConfig.getPassword().get(idx))
-                                .build()))
-                );
+                .forEach(idx -> sources.add(new JdbcTemplate(openPool(poolConfig(propConfig, idx)))));
         return sources;
     }
-}
\ No newline at end of file
+
+    private HikariConfig poolConfig(PropConfig propConfig, int idx) {
+        HikariConfig config = poolConfig("installation-" + idx, propConfig.getDriverClassName().get(idx),
+                propConfig.getUrl().get(idx), propConfig.getUsername().get(idx), propConfig.getPassword().get(idx),
+                get(propConfig.getPoolSize(), idx, null), get(propConfig.getConcurrency(), idx, null));
+        config.setConnectionTimeout(get(propConfig.getConnectionTimeout(), idx, DEFAULT_CONNECTION_TIMEOUT));
+        config.setValidationTimeout(get(propConfig.getValidationTimeout(), idx, DEFAULT_VALIDATION_TIMEOUT));
+        config.setConnectionTestQuery(get(propConfig.getConnectionTestQuery(), idx, null));
+        Integer connectTimeout = get(propConfig.getConnectTimeout(), idx, null);
+        if (connectTimeout != null) {
+            config.addDataSourceProperty("connectTimeout", connectTimeout);
+        }
+        Integer socketTimeout = get(propConfig.getSocketTimeout(), idx, null);
+        if (socketTimeout != null) {
+            config.addDataSourceProperty("socketTimeout", socketTimeout);
+        }
+        return config;
+    }
+
+    /* The pool of a DB installation, the settings which aren't given have their defaults.
+     * Used for the installations added at runtime as well */
+    public static HikariConfig poolConfig(String poolName, String driverClassName, String url, String username,
+                                          String password, Integer poolSize, Integer concurrency) {
+        // every concurrent run of the installation needs its own connection
+        int size = poolSize != null ? poolSize
+                : Math.max(DEFAULT_POOL_SIZE, concurrency != null ? concurrency : RunScheduler.DEFAULT_CONCURRENCY);
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        // without a driver class the driver is found by the url
+        if (driverClassName != null) {
+            config.setDriverClassName(driverClassName);
+        }
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        // fixed size pool, connections are never opened while a run is measured
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(size);
+        config.setConnectionTimeout(DEFAULT_CONNECTION_TIMEOUT);
+        config.setValidationTimeout(DEFAULT_VALIDATION_TIMEOUT);
+        // the installation may be down at startup, runs against it fail until it is back
+        config.setInitializationFailTimeout(-1);
+        if (url != null && url.startsWith("jdbc:mysql:")) {
+            // parameterized versions are prepared on the server once per connection and reused by the next runs
+            config.addDataSourceProperty("useServerPrepStmts", true);
+            config.addDataSourceProperty("cachePrepStmts", true);
+            config.addDataSourceProperty("prepStmtCacheSize", 250);
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", 2048);
+        }
+        return config;
+    }
+
+    public static HikariDataSource openPool(HikariConfig config) {
+        HikariDataSource dataSource = new HikariDataSource(config);
+        warmUp(dataSource);
+        return dataSource;
+    }
+
+    // opens the whole pool at once, so handshakes don't happen during the first runs
+    private static void warmUp(HikariDataSource dataSource) {
+        List<Connection> connections = new ArrayList<>(dataSource.getMaximumPoolSize());
+        try {
+            for (int i = 0; i < dataSource.getMaximumPoolSize(); i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(WARM_UP_VALIDATION_TIMEOUT);
+            }
+            logger.info(String.format("Pool %s is warmed up with %d connections",
+                    dataSource.getPoolName(), connections.size()));
+        } catch (SQLException e) {
+            logger.warn(String.format("Pool %s can't be warmed up: %s", dataSource.getPoolName(), e.getMessage()));
+        } finally {
+            connections.forEach(connection -> {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.warn(e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -16,4 +16,26 @@ public class PropConfig {
     private List<String> username;
     private List<String> password;
 
-}
\ No newline at end of file
+    // connection pool of a DB installation, defaults are used for missing entries
+    private List<Integer> poolSize;
+    private List<Long> connectionTimeout;
+    private List<Long> validationTimeout;
+    private List<String> connectionTestQuery;
+    // driver level timeouts in ms, passed as connectTimeout/socketTimeout data source properties
+    private List<Integer> connectTimeout;
+    private List<Integer> socketTimeout;
+
+    // runs active on a DB installation at once, 1 keeps the installation exclusive to one run
+    private List<Integer> concurrency;
+    // runs waiting for a DB installation, further submissions fail
+    private List<Integer> queueCapacity;
+    // statements resetting the caches of a DB installation before the iterations of cold runs, e.g. FLUSH TABLES
+    private List<String> cacheReset;
+
+    public static <T> T get(List<T> values, int idx, T defaultValue) {
+        if (values == null || idx >= values.size() || values.get(idx) == null) {
+            return defaultValue;
+        }
+        return values.get(idx);
+    }
+}
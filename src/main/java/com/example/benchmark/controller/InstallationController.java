@@ -0,0 +1,57 @@
+package com.example.benchmark.controller;
+
+import com.example.benchmark.dto.InstallationDto;
+import com.example.benchmark.dto.NewInstallationRequest;
+import com.example.benchmark.service.InstallationRegistry;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@RestController
+@RequestMapping("/installation")
+public class InstallationController {
+
+    @Autowired
+    private InstallationRegistry installationRegistry;
+
+    @ApiOperation(value = "View the DB installations, the removed ones included")
+    @GetMapping(value = "/list", produces = "application/json")
+    public List<InstallationDto> listInstallations() {
+        return installationRegistry.listInstallations().stream().map(InstallationDto::new).collect(toList());
+    }
+
+    @ApiOperation(value = "Add a DB installation, it gets the runs of the next versions")
+    @PostMapping(value = "/add", produces = "application/json")
+    public ResponseEntity addInstallation(@Valid @RequestBody NewInstallationRequest request) {
+        try {
+            return new ResponseEntity<>(new InstallationDto(installationRegistry.add(request.toInstallation())), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @ApiOperation(value = "Stop giving new runs to the DB installation, the queued and executing ones are finished")
+    @PostMapping(value = "/drain/{id}", produces = "application/json")
+    public InstallationDto drainInstallation(@PathVariable Long id) {
+        return installationRegistry.drain(id).map(InstallationDto::new).orElse(null);
+    }
+
+    @ApiOperation(value = "Give new runs to a drained DB installation again")
+    @PostMapping(value = "/activate/{id}", produces = "application/json")
+    public InstallationDto activateInstallation(@PathVariable Long id) {
+        return installationRegistry.activate(id).map(InstallationDto::new).orElse(null);
+    }
+
+    @ApiOperation(value = "Remove the DB installation, its queued and executing runs are cancelled")
+    @DeleteMapping(value = "/remove/{id}", produces = "application/json")
+    public InstallationDto removeInstallation(@PathVariable Long id) {
+        return installationRegistry.remove(id).map(InstallationDto::new).orElse(null);
+    }
+}
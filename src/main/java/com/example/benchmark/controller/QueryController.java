@@ -4,17 +4,28 @@ import com.example.benchmark.dto.*;
 import com.example.benchmark.model.Version;
 import com.example.benchmark.model.Query;
 import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Suite;
 import com.example.benchmark.service.QueryService;
+import com.example.benchmark.service.SuiteQuery;
+import com.example.benchmark.service.VersionComparison;
+import com.example.benchmark.service.VersionProgress;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.stream.Collectors.toList;
 
@@ -46,19 +57,141 @@ public class QueryController {
         return getQueryResponse(query, pageable);
     }
 
+    @ApiOperation(value = "List the query versions without their runs, filtered by status and sortable " +
+            "by created, summary.bestWorkTime, summary.worstWorkTime")
+    @GetMapping(value = "/versions/{queryName}", produces = "application/json")
+    public List<VersionSummaryDto> listVersions(@PathVariable String queryName,
+                                                @RequestParam(required = false) Status status, Pageable pageable) {
+        Query query = queryService.findQuery(queryName);
+        if (Objects.isNull(query)) {
+            return null;
+        }
+        return queryService.findVersions(query, status, pageable).stream().map(VersionSummaryDto::new).collect(toList());
+    }
+
     @ApiOperation(value = "Create/update a query - triggers execution")
     @PostMapping(value = "/createOrUpdate", produces = "application/json")
-    public QueryResponse createOrUpdateQuery(@RequestBody NewQueryRequest request, Pageable pageable) {
-        Query query = queryService.createOrUpdateQuery(request.getName(), request.getTxt());
+    public QueryResponse createOrUpdateQuery(@Valid @RequestBody NewQueryRequest request, Pageable pageable) {
+        RunOptionsDto options = Objects.isNull(request.getOptions()) ? new RunOptionsDto() : request.getOptions();
+        Query query = queryService.createOrUpdateQuery(request.getName(), request.getTxt(), request.toBindSource(),
+                request.toScript(), options.toRunOptions());
         return getQueryResponse(query, pageable);
     }
 
+    @ApiOperation(value = "Create/update a query and execute it, or execute the latest version if there is no txt. " +
+            "Responds with the version ID right away, follow it with /events or /await")
+    @PostMapping(value = "/submit", produces = "application/json")
+    public ResponseEntity<SubmissionDto> submitQuery(@Valid @RequestBody NewQueryRequest request) {
+        RunOptionsDto options = Objects.isNull(request.getOptions()) ? new RunOptionsDto() : request.getOptions();
+        Version version;
+        if (Objects.isNull(request.getTxt())) {
+            Query query = queryService.findQuery(request.getName());
+            version = Objects.isNull(query) ? null : queryService.executeQuery(query, options.toRunOptions());
+        } else {
+            version = queryService.submitQuery(request.getName(), request.getTxt(), request.toBindSource(),
+                    request.toScript(), options.toRunOptions());
+        }
+        if (Objects.isNull(version)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(new SubmissionDto(version), HttpStatus.OK);
+    }
+
+    @ApiOperation(value = "Create/update many queries and execute their new versions, the runs are queued together " +
+            "in the order of the queries. Responds with the suite right away")
+    @PostMapping(value = "/suite", produces = "application/json")
+    public ResponseEntity submitSuite(@Valid @RequestBody NewSuiteRequest request) {
+        if (request.getQueries().stream().anyMatch(q -> Objects.isNull(q.getName()) || Objects.isNull(q.getTxt()))) {
+            return new ResponseEntity<>("Every query of a suite needs a name and a txt", HttpStatus.BAD_REQUEST);
+        }
+        List<SuiteQuery> queries = request.getQueries().stream()
+                .map(q -> new SuiteQuery(q.getName(), q.getTxt(), q.toBindSource(), q.toScript(),
+                        (Objects.isNull(q.getOptions()) ? new RunOptionsDto() : q.getOptions()).toRunOptions()))
+                .collect(toList());
+        return new ResponseEntity<>(new SuiteDto(queryService.submitSuite(request.getName(), queries)), HttpStatus.OK);
+    }
+
+    @ApiOperation(value = "Show the suite with the status of its versions")
+    @GetMapping(value = "/suite/{id}", produces = "application/json")
+    public SuiteDto showSuite(@PathVariable Long id) {
+        Suite suite = queryService.getSuite(id);
+        if (Objects.isNull(suite)) {
+            return null;
+        }
+        return new SuiteDto(suite);
+    }
+
+    @ApiOperation(value = "Stream the state of every run of the version, then their status transitions as server-sent " +
+            "events; a done event closes the stream when all runs are finished")
+    @GetMapping(value = "/events/{id}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter followVersion(@PathVariable Long id, @RequestParam(defaultValue = "600") long timeout) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.SECONDS.toMillis(timeout));
+        VersionProgress progress = queryService.followVersion(id, event -> {
+            try {
+                emitter.send(SseEmitter.event().name("run").data(new RunEventDto(event)));
+            } catch (IOException | IllegalStateException e) {
+                // the client is gone
+                emitter.completeWithError(e);
+            }
+        });
+        if (Objects.isNull(progress)) {
+            emitter.complete();
+            return emitter;
+        }
+        emitter.onCompletion(progress::close);
+        emitter.onTimeout(progress::close);
+        // on the delivery thread of the events, or the request thread if the runs are finished already
+        progress.getFinished().whenComplete((result, e) -> {
+            try {
+                if (Objects.isNull(e)) {
+                    emitter.send(SseEmitter.event().name("done").data(id));
+                }
+                // closed without a done event when the client is gone or couldn't keep up with the events
+                emitter.complete();
+            } catch (IOException | IllegalStateException ex) {
+                emitter.completeWithError(ex);
+            }
+        });
+        return emitter;
+    }
+
+    @ApiOperation(value = "Wait till all runs of the version are finished, responds with 202 and the current state " +
+            "if they aren't finished in timeout seconds")
+    @GetMapping(value = "/await/{id}", produces = "application/json")
+    public DeferredResult<ResponseEntity<VersionDto>> awaitVersion(@PathVariable Long id,
+                                                                   @RequestParam(defaultValue = "60") long timeout) {
+        DeferredResult<ResponseEntity<VersionDto>> result = new DeferredResult<>(TimeUnit.SECONDS.toMillis(timeout));
+        VersionProgress progress = queryService.followVersion(id, event -> {});
+        if (Objects.isNull(progress)) {
+            result.setResult(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(
+                new ResponseEntity<>(new VersionDto(queryService.getVersion(id)), HttpStatus.ACCEPTED)));
+        result.onCompletion(progress::close);
+        // the version is read off the thread of the run which has finished it
+        progress.getFinished().thenRunAsync(() -> result.setResult(
+                new ResponseEntity<>(new VersionDto(queryService.getVersion(id)), HttpStatus.OK)));
+        return result;
+    }
+
     @ApiOperation(value = "Execute the query's latest version against different DB installations")
     @GetMapping(value = "/execute/{queryName}", produces = "application/json")
-    public QueryResponse executeQuery(@PathVariable String queryName, Pageable pageable) {
+    public QueryResponse executeQuery(@PathVariable String queryName, @Valid RunOptionsDto options, Pageable pageable) {
+        Query query = queryService.findQuery(queryName);
+        if (!Objects.isNull(query)) {
+            queryService.executeQuery(query, options.toRunOptions());
+        }
+        return getQueryResponse(query, pageable);
+    }
+
+    @ApiOperation(value = "Load test the query's latest version with concurrent clients on every DB installation")
+    @GetMapping(value = "/loadTest/{queryName}", produces = "application/json")
+    public QueryResponse loadTestQuery(@PathVariable String queryName, @Valid RunOptionsDto options,
+                                       @Valid LoadTestOptionsDto load, Pageable pageable) {
         Query query = queryService.findQuery(queryName);
         if (!Objects.isNull(query)) {
-            queryService.executeQuery(query);
+            queryService.loadTestQuery(query, options.toRunOptions(), load.toLoadTestOptions());
         }
         return getQueryResponse(query, pageable);
     }
@@ -71,6 +204,13 @@ public class QueryController {
         return new QueryResponse(query, qVersions);
     }
 
+    @ApiOperation(value = "Cancel the scheduled and executing runs of the version")
+    @PostMapping(value = "/cancel/{id}", produces = "application/json")
+    public ResponseEntity cancelVersion(@PathVariable Long id) {
+        int cancelled = queryService.cancelVersion(id);
+        return new ResponseEntity(String.format("%d runs have been cancelled", cancelled), HttpStatus.OK);
+    }
+
     @ApiOperation(value = "Delete the query and its versions")
     @DeleteMapping(value = "/delete/{id}", produces = "application/json")
     public ResponseEntity deleteQuery(@PathVariable Long id) {
@@ -95,6 +235,21 @@ public class QueryController {
         return new VersionDto(version);
     }
 
+    @ApiOperation(value = "Compare the version with its predecessor or the given baseline per DB installation, " +
+            "responds with 409 on a regression if failOnRegression is set")
+    @GetMapping(value = "/compare/{id}", produces = "application/json")
+    public ResponseEntity<VersionComparisonDto> compareVersions(@PathVariable Long id,
+                                                                @RequestParam(required = false) Long baselineId,
+                                                                @RequestParam(required = false) Double threshold,
+                                                                @RequestParam(defaultValue = "false") boolean failOnRegression) {
+        VersionComparison comparison = queryService.compareVersions(id, baselineId, threshold);
+        if (Objects.isNull(comparison)) {
+            return null;
+        }
+        HttpStatus status = failOnRegression && comparison.isRegression() ? HttpStatus.CONFLICT : HttpStatus.OK;
+        return new ResponseEntity<>(new VersionComparisonDto(comparison), status);
+    }
+
     @ApiOperation(value = "Show the specified DB run")
     @GetMapping(value = "/showRun/{id}", produces = "application/json")
     public RunDto showRun(@PathVariable Long id) {
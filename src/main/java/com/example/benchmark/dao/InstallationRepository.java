@@ -0,0 +1,12 @@
+package com.example.benchmark.dao;
+
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.InstallationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface InstallationRepository extends JpaRepository<Installation, Long> {
+
+    List<Installation> findByStatusNotOrderById(InstallationStatus status);
+}
@@ -3,10 +3,14 @@ package com.example.benchmark.dao;
 import com.example.benchmark.model.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
 public interface QueryRepository extends JpaRepository<Query, Long> {
 
     Optional<Query> findByName(String queryName);
-}
\ No newline at end of file
+
+    List<Query> findByNameIn(Collection<String> queryNames);
+}
@@ -1,8 +1,12 @@
 package com.example.benchmark.dao;
 
 import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface RunRepository extends JpaRepository<Run, Long> {
 
+    List<Run> findByStatusOrderById(Status status);
 }
\ No newline at end of file
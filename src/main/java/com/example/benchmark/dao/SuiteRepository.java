@@ -0,0 +1,13 @@
+package com.example.benchmark.dao;
+
+import com.example.benchmark.model.Suite;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface SuiteRepository extends JpaRepository<Suite, Long> {
+
+    @EntityGraph(attributePaths = "versions")
+    Optional<Suite> findWithVersionsById(Long id);
+}
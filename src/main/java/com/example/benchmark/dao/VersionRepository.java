@@ -2,9 +2,13 @@ package com.example.benchmark.dao;
 
 import com.example.benchmark.model.Version;
 import com.example.benchmark.model.Query;
+import com.example.benchmark.model.Status;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +19,20 @@ public interface VersionRepository extends JpaRepository<Version, Long> {
     List<Version> findByQueryOrderByCreatedDesc(Query query);
 
     List<Version> findByQueryOrderByCreatedDesc(Query query, Pageable pageable);
-}
\ No newline at end of file
+
+    List<Version> findByQuery(Query query, Pageable pageable);
+
+    List<Version> findByQueryAndSummaryStatus(Query query, Status status, Pageable pageable);
+
+    // loads the runs of already selected versions with one query instead of one query per version
+    @org.springframework.data.jpa.repository.Query(
+            "select distinct v from Version v left join fetch v.runs where v.id in :ids")
+    List<Version> fetchRuns(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "runs")
+    Optional<Version> findWithRunsById(Long id);
+
+    // the version of the same query created right before the given one
+    @EntityGraph(attributePaths = "runs")
+    Optional<Version> findFirstByQueryAndIdLessThanOrderByIdDesc(Query query, Long id);
+}
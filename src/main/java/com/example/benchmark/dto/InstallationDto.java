@@ -0,0 +1,59 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.InstallationStatus;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class InstallationDto {
+
+    @ApiModelProperty(notes = "The database generated DB installation ID")
+    private Long id;
+
+    @ApiModelProperty(notes = "The jdbc url of the DB installation")
+    private String jdbcUrl;
+
+    @ApiModelProperty(notes = "The JDBC driver class")
+    private String driverClassName;
+
+    @ApiModelProperty(notes = "The DB user")
+    private String username;
+
+    @ApiModelProperty(notes = "The fixed size of the connection pool")
+    private Integer poolSize;
+
+    @ApiModelProperty(notes = "The runs executing on the installation at once")
+    private Integer concurrency;
+
+    @ApiModelProperty(notes = "The runs waiting for the installation")
+    private Integer queueCapacity;
+
+    @ApiModelProperty(notes = "The statements resetting the DB caches before every iteration of cold runs")
+    private String cacheReset;
+
+    @ApiModelProperty(notes = "The installation is declared in application.properties")
+    private boolean configured;
+
+    @ApiModelProperty(notes = "ACTIVE gets new runs, DRAINING finishes its queue, REMOVED keeps the history only")
+    private InstallationStatus status;
+
+    @ApiModelProperty(notes = "The timestamp the installation was registered at")
+    private LocalDateTime created;
+
+    public InstallationDto(Installation installation) {
+        this.id = installation.getId();
+        this.jdbcUrl = Installation.maskPassword(installation.getJdbcUrl());
+        this.driverClassName = installation.getDriverClassName();
+        this.username = installation.getUsername();
+        this.poolSize = installation.getPoolSize();
+        this.concurrency = installation.getConcurrency();
+        this.queueCapacity = installation.getQueueCapacity();
+        this.cacheReset = installation.getCacheReset();
+        this.configured = installation.isConfigured();
+        this.status = installation.getStatus();
+        this.created = installation.getCreated();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.LatencyStats;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+@Getter
+public class LatencyStatsDto {
+
+    @ApiModelProperty(notes = "The number of measured iterations")
+    private Integer sampleCount;
+
+    @ApiModelProperty(notes = "The fastest iteration, ns")
+    private Long min;
+
+    @ApiModelProperty(notes = "The mean iteration time, ns")
+    private Long mean;
+
+    @ApiModelProperty(notes = "The median iteration time, ns")
+    private Long p50;
+
+    @ApiModelProperty(notes = "The 90th percentile of iteration time, ns")
+    private Long p90;
+
+    @ApiModelProperty(notes = "The 99th percentile of iteration time, ns")
+    private Long p99;
+
+    @ApiModelProperty(notes = "The slowest iteration, ns")
+    private Long max;
+
+    @ApiModelProperty(notes = "The standard deviation of iteration time, ns")
+    private Double stdDev;
+
+    public LatencyStatsDto(LatencyStats stats) {
+        this.sampleCount = stats.getSampleCount();
+        this.min = stats.getMinTime();
+        this.mean = stats.getMeanTime();
+        this.p50 = stats.getP50Time();
+        this.p90 = stats.getP90Time();
+        this.p99 = stats.getP99Time();
+        this.max = stats.getMaxTime();
+        this.stdDev = stats.getStdDevTime();
+    }
+}
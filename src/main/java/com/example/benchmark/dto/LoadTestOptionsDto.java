@@ -0,0 +1,45 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.LoadTestOptions;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.Min;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class LoadTestOptionsDto {
+
+    @ApiModelProperty(notes = "The number of virtual clients executing the query at once on every DB installation")
+    @Min(1)
+    private Integer clients;
+
+    @ApiModelProperty(notes = "The target executions per second of all clients together, as fast as possible if omitted")
+    @Min(1)
+    private Integer targetQps;
+
+    @ApiModelProperty(notes = "The duration of the load test, seconds")
+    @Min(1)
+    private Integer duration;
+
+    public LoadTestOptionsDto(LoadTestOptions options) {
+        this.clients = options.getClients();
+        this.targetQps = options.getTargetQps();
+        this.duration = options.getDuration();
+    }
+
+    public LoadTestOptions toLoadTestOptions() {
+        LoadTestOptions options = new LoadTestOptions();
+        if (clients != null) {
+            options.setClients(clients);
+        }
+        options.setTargetQps(targetQps);
+        if (duration != null) {
+            options.setDuration(duration);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.Installation;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class NewInstallationRequest {
+
+    @ApiModelProperty(notes = "The jdbc url of the DB installation")
+    @NotBlank
+    private String jdbcUrl;
+
+    @ApiModelProperty(notes = "The JDBC driver class, derived from the url if omitted")
+    private String driverClassName;
+
+    @ApiModelProperty(notes = "The DB user")
+    private String username;
+
+    @ApiModelProperty(notes = "The password of the DB user")
+    private String password;
+
+    @ApiModelProperty(notes = "The fixed size of the connection pool, the concurrency but at least 2 if omitted")
+    @Min(1)
+    private Integer poolSize;
+
+    @ApiModelProperty(notes = "The runs executing on the installation at once, 1 if omitted")
+    @Min(1)
+    private Integer concurrency;
+
+    @ApiModelProperty(notes = "The runs waiting for the installation, 10000 if omitted")
+    @Min(1)
+    private Integer queueCapacity;
+
+    @ApiModelProperty(notes = "Statements separated by semicolons resetting the DB caches before every iteration of cold runs")
+    private String cacheReset;
+
+    public Installation toInstallation() {
+        Installation installation = new Installation();
+        installation.setJdbcUrl(jdbcUrl);
+        installation.setDriverClassName(driverClassName);
+        installation.setUsername(username);
+        installation.setPassword(password);
+        installation.setPoolSize(poolSize);
+        installation.setConcurrency(concurrency);
+        installation.setQueueCapacity(queueCapacity);
+        installation.setCacheReset(cacheReset);
+        return installation;
+    }
+}
@@ -1,12 +1,20 @@
 package com.example.benchmark.dto;
 
+import com.example.benchmark.model.BindSource;
+import com.example.benchmark.model.SessionScript;
+import com.example.benchmark.service.BindSets;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.annotations.ApiModelProperty;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
 @NoArgsConstructor
-@AllArgsConstructor
 @Getter
 public class NewQueryRequest {
 
@@ -16,6 +24,30 @@ public class NewQueryRequest {
     @ApiModelProperty(notes = "The content of the new query")
     private String txt;
 
+    @ApiModelProperty(notes = "The measurement options, a single cold iteration if omitted")
+    @Valid
+    private RunOptionsDto options;
+
+    @ApiModelProperty(notes = "The values of the txt placeholders, one list per execution, the runs cycle through them")
+    private List<List<Object>> binds;
+
+    @ApiModelProperty(notes = "The bind sets as CSV, one per line: quoted values are strings, unquoted ones numbers, empty ones NULL")
+    private String bindCsv;
+
+    @ApiModelProperty(notes = "A query returning the bind sets, executed on every DB installation before its run")
+    private String bindQuery;
+
+    @ApiModelProperty(notes = "Statements separated by semicolons executed on the connection of a run before txt, not timed")
+    private String setup;
+
+    @ApiModelProperty(notes = "Statements executed on the connection of a run after txt, even if the run failed, not timed")
+    private String teardown;
+
+    public NewQueryRequest(String name, String txt) {
+        this.name = name;
+        this.txt = txt;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
@@ -24,4 +56,56 @@ public class NewQueryRequest {
         this.txt = txt;
     }
 
-}
\ No newline at end of file
+    public void setOptions(RunOptionsDto options) {
+        this.options = options;
+    }
+
+    public void setBinds(List<List<Object>> binds) {
+        this.binds = binds;
+    }
+
+    public void setBindCsv(String bindCsv) {
+        this.bindCsv = bindCsv;
+    }
+
+    public void setBindQuery(String bindQuery) {
+        this.bindQuery = bindQuery;
+    }
+
+    public void setSetup(String setup) {
+        this.setup = setup;
+    }
+
+    public void setTeardown(String teardown) {
+        this.teardown = teardown;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Only one of binds, bindCsv and bindQuery may be set")
+    public boolean isSingleBindSource() {
+        return Stream.of(binds, bindCsv, bindQuery).filter(Objects::nonNull).count() <= 1;
+    }
+
+    /* Null if the txt has no placeholders */
+    public BindSource toBindSource() {
+        if (!Objects.isNull(binds)) {
+            return new BindSource(BindSets.format(binds), null);
+        }
+        if (!Objects.isNull(bindCsv)) {
+            // normalized, so the same rows make the same version
+            return new BindSource(BindSets.format(BindSets.parse(bindCsv)), null);
+        }
+        if (!Objects.isNull(bindQuery)) {
+            return new BindSource(null, bindQuery);
+        }
+        return null;
+    }
+
+    /* Null if there is neither setup nor teardown */
+    public SessionScript toScript() {
+        if (Objects.isNull(setup) && Objects.isNull(teardown)) {
+            return null;
+        }
+        return new SessionScript(setup, teardown);
+    }
+}
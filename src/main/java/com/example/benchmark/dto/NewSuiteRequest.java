@@ -0,0 +1,24 @@
+package com.example.benchmark.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class NewSuiteRequest {
+
+    @ApiModelProperty(notes = "An optional name of the suite, e.g. the nightly job")
+    private String name;
+
+    @ApiModelProperty(notes = "The queries with the SQL of their new versions, executed in this order")
+    @NotEmpty
+    @Valid
+    private List<NewQueryRequest> queries;
+}
@@ -0,0 +1,51 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.service.RunComparison;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+@Getter
+public class RunComparisonDto {
+
+    @ApiModelProperty(notes = "The ID of the DB installation both runs were executed on")
+    private Long installationId;
+
+    @ApiModelProperty(notes = "The jdbc url of the DB installation")
+    private String jdbcUrl;
+
+    @ApiModelProperty(notes = "False if one of the runs isn't done or has no measured samples")
+    private boolean comparable;
+
+    @ApiModelProperty(notes = "The median iteration time of the baseline run, ns")
+    private Long baselineMedian;
+
+    @ApiModelProperty(notes = "The median iteration time of the compared run, ns")
+    private Long candidateMedian;
+
+    @ApiModelProperty(notes = "Baseline median divided by the compared median, below 1 means slower")
+    private Double speedup;
+
+    @ApiModelProperty(notes = "Two-sided p-value of the Mann-Whitney U test over the samples of both runs")
+    @JsonProperty("pValue")
+    private Double pValue;
+
+    @ApiModelProperty(notes = "The run is significantly slower than the baseline by more than the threshold")
+    private boolean regression;
+
+    @ApiModelProperty(notes = "The plan shape differs from the baseline one, null if one of the runs wasn't explained")
+    private Boolean planChanged;
+
+    public RunComparisonDto(RunComparison comparison) {
+        this.installationId = comparison.getInstallationId();
+        this.jdbcUrl = Installation.maskPassword(comparison.getJdbcUrl());
+        this.comparable = comparison.isComparable();
+        this.baselineMedian = comparison.getBaselineMedian();
+        this.candidateMedian = comparison.getCandidateMedian();
+        this.speedup = comparison.getSpeedup();
+        this.pValue = comparison.getPValue();
+        this.regression = comparison.isRegression();
+        this.planChanged = comparison.getPlanChanged();
+    }
+}
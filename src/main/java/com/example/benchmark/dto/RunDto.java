@@ -1,31 +1,134 @@
 package com.example.benchmark.dto;
 
+import com.example.benchmark.model.Installation;
 import com.example.benchmark.model.Run;
 import com.example.benchmark.model.Status;
+import com.example.benchmark.service.Statistics;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Getter;
 
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
 @Getter
 public class RunDto {
 
     @ApiModelProperty(notes = "The database generated query version run ID")
     private Long id;
 
+    @ApiModelProperty(notes = "The ID of the DB installation where to preform the run")
+    private Long installationId;
+
     @ApiModelProperty(notes = "The jdbc url of DB where to preform the run")
     private String jdbcUrl;
 
     @ApiModelProperty(notes = "The status of the run")
     private Status status;
 
-    @ApiModelProperty(notes = "The working time of the run")
+    @ApiModelProperty(notes = "The working time of the run, mean of the measured iterations in ms")
     private Long workTime;
 
+    @ApiModelProperty(notes = "The latency distribution of the measured iterations")
+    private LatencyStatsDto stats;
+
+    @ApiModelProperty(notes = "The time of the setup statements, not part of the measured time, ns")
+    private Long setupTime;
+
+    @ApiModelProperty(notes = "The time of the teardown statements, not part of the measured time, ns")
+    private Long teardownTime;
+
+    @ApiModelProperty(notes = "The error of the setup statements, the run failed because of it")
+    private String setupError;
+
+    @ApiModelProperty(notes = "The error of the teardown statements, the measurements of the run are kept")
+    private String teardownError;
+
+    @ApiModelProperty(notes = "The number of bind sets a parameterized version cycled through")
+    private Integer bindSetCount;
+
+    @ApiModelProperty(notes = "The latency distribution of every bind set, in the order of the bind sets, "
+            + "null for a bind set without measured iterations")
+    private List<LatencyStatsDto> bindSetStats;
+
+    @ApiModelProperty(notes = "The server side counters summed over the measured iterations, e.g. Handler_read_rnd_next "
+            + "or ps.rows_examined on MySQL")
+    private Map<String, Long> counters;
+
+    @ApiModelProperty(notes = "The time to get a connection from the pool, not part of the measured time, ns")
+    private Long connectionAcquireTime;
+
+    @ApiModelProperty(notes = "The mean time till the first row is available, ns")
+    private Long firstRowTime;
+
+    @ApiModelProperty(notes = "The mean time spent reading the rest of the result set, ns")
+    private Long fetchTime;
+
+    @ApiModelProperty(notes = "The number of rows read by one iteration")
+    private Long rowCount;
+
+    @ApiModelProperty(notes = "The approximate number of bytes read by one iteration")
+    private Long bytesRead;
+
+    @ApiModelProperty(notes = "The execution plan, if the run was explained")
+    private String plan;
+
+    @ApiModelProperty(notes = "The hash of the plan without costs and literals, equal for the same plan shape")
+    private String planFingerprint;
+
+    @ApiModelProperty(notes = "The number of executions of a load test")
+    private Long operations;
+
+    @ApiModelProperty(notes = "The number of failed executions of a load test")
+    private Long errors;
+
+    @ApiModelProperty(notes = "The share of failed executions of a load test")
+    private Double errorRate;
+
+    @ApiModelProperty(notes = "The successful executions per second of a load test")
+    private Double throughput;
+
+    @ApiModelProperty(notes = "The base64 encoded compressed HdrHistogram of load test latencies, ns")
+    private String histogram;
+
 
     public RunDto(Run run) {
         this.id = run.getId();
-        this.jdbcUrl = run.getJdbcUrl();
+        if (run.getInstallation() != null) {
+            this.installationId = run.getInstallation().getId();
+            this.jdbcUrl = Installation.maskPassword(run.getInstallation().getJdbcUrl());
+        }
         this.status = run.getStatus();
         this.workTime = run.getWorkTime();
+        if (run.getStats() != null) {
+            this.stats = new LatencyStatsDto(run.getStats());
+        }
+        this.setupTime = run.getSetupTime();
+        this.teardownTime = run.getTeardownTime();
+        this.setupError = run.getSetupError();
+        this.teardownError = run.getTeardownError();
+        this.bindSetCount = run.getBindSetCount();
+        if (run.getBindSetCount() != null && run.getSamples() != null && !run.getSamples().isEmpty()) {
+            this.bindSetStats = Statistics.latencyStatsByBindSet(run.getSamples(), run.getBindSetCount()).stream()
+                    .map(stats -> stats == null ? null : new LatencyStatsDto(stats))
+                    .collect(toList());
+        }
+        if (run.getCounters() != null && !run.getCounters().isEmpty()) {
+            this.counters = run.getCounters();
+        }
+        this.connectionAcquireTime = run.getConnectionAcquireTime();
+        this.firstRowTime = run.getFirstRowTime();
+        this.fetchTime = run.getFetchTime();
+        this.rowCount = run.getRowCount();
+        this.bytesRead = run.getBytesRead();
+        this.plan = run.getPlan();
+        this.planFingerprint = run.getPlanFingerprint();
+        this.operations = run.getOperations();
+        this.errors = run.getErrors();
+        this.errorRate = run.getErrorRate();
+        this.throughput = run.getThroughput();
+        this.histogram = run.getHistogram();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.Status;
+import com.example.benchmark.service.RunEvent;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class RunEventDto {
+
+    @ApiModelProperty(notes = "The ID of the run")
+    private Long runId;
+
+    @ApiModelProperty(notes = "The ID of the query version of the run")
+    private Long versionId;
+
+    @ApiModelProperty(notes = "The ID of the DB installation of the run")
+    private Long installationId;
+
+    @ApiModelProperty(notes = "The status the run has got")
+    private Status status;
+
+    @ApiModelProperty(notes = "The working time of the run, mean of the measured iterations in ms")
+    private Long workTime;
+
+    @ApiModelProperty(notes = "The timestamp of the transition")
+    private LocalDateTime time;
+
+    public RunEventDto(RunEvent event) {
+        this.runId = event.getRunId();
+        this.versionId = event.getVersionId();
+        this.installationId = event.getInstallationId();
+        this.status = event.getStatus();
+        this.workTime = event.getWorkTime();
+        this.time = event.getTime();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.CacheMode;
+import com.example.benchmark.model.ConnectionMode;
+import com.example.benchmark.model.FetchMode;
+import com.example.benchmark.model.IsolationLevel;
+import com.example.benchmark.model.RunOptions;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class RunOptionsDto {
+
+    @ApiModelProperty(notes = "The number of not measured iterations executed before the measured ones, 100000 at most")
+    @Min(0)
+    @Max(RunOptions.MAX_ITERATIONS)
+    private Integer warmupIterations;
+
+    @ApiModelProperty(notes = "The number of measured iterations per DB installation, 100000 at most")
+    @Min(1)
+    @Max(RunOptions.MAX_ITERATIONS)
+    private Integer iterations;
+
+    @ApiModelProperty(notes = "EXECUTE only runs the statement, FETCH/STREAM also read the whole result set")
+    private FetchMode fetchMode;
+
+    @ApiModelProperty(notes = "The number of rows fetched per round trip, ignored by STREAM on MySQL")
+    @Min(0)
+    private Integer fetchSize;
+
+    @ApiModelProperty(notes = "Seconds the run may take with all its iterations, benchmark.run.timeout if not set")
+    @Min(1)
+    private Integer timeout;
+
+    @ApiModelProperty(notes = "Capture the execution plan of the query on every DB installation")
+    private Boolean explain;
+
+    @ApiModelProperty(notes = "DEDICATED keeps a pooled connection for all iterations, FRESH opens a new physical connection for the run")
+    private ConnectionMode connectionMode;
+
+    @ApiModelProperty(notes = "The transaction isolation level of the run connection, the pool default if omitted")
+    private IsolationLevel isolation;
+
+    @ApiModelProperty(notes = "Sets the run connection read-only")
+    private Boolean readOnly;
+
+    @ApiModelProperty(notes = "With false all iterations run in one transaction which is rolled back at the end of the run")
+    private Boolean autoCommit;
+
+    @ApiModelProperty(notes = "COLD executes the cache reset statements of the installation before every iteration, WARM if omitted")
+    private CacheMode cacheMode;
+
+    public RunOptionsDto(RunOptions options) {
+        this.warmupIterations = options.getWarmupIterations();
+        this.iterations = options.getIterations();
+        this.fetchMode = options.getFetchMode();
+        this.fetchSize = options.getFetchSize();
+        this.timeout = options.getTimeout();
+        this.explain = options.getExplain();
+        this.connectionMode = options.getConnectionMode();
+        this.isolation = options.getIsolation();
+        this.readOnly = options.getReadOnly();
+        this.autoCommit = options.getAutoCommit();
+        this.cacheMode = options.getCacheMode();
+    }
+
+    public RunOptions toRunOptions() {
+        RunOptions options = new RunOptions();
+        if (warmupIterations != null) {
+            options.setWarmupIterations(warmupIterations);
+        }
+        if (iterations != null) {
+            options.setIterations(iterations);
+        }
+        if (fetchMode != null) {
+            options.setFetchMode(fetchMode);
+        }
+        options.setFetchSize(fetchSize);
+        options.setTimeout(timeout);
+        if (explain != null) {
+            options.setExplain(explain);
+        }
+        if (connectionMode != null) {
+            options.setConnectionMode(connectionMode);
+        }
+        options.setIsolation(isolation);
+        options.setReadOnly(readOnly);
+        options.setAutoCommit(autoCommit);
+        if (cacheMode != null) {
+            options.setCacheMode(cacheMode);
+        }
+        return options;
+    }
+}
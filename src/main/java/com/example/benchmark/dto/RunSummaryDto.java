@@ -0,0 +1,52 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.RunSummary;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+@Getter
+public class RunSummaryDto {
+
+    @ApiModelProperty(notes = "The number of runs of the version, one per DB installation")
+    private Integer runCount;
+
+    @ApiModelProperty(notes = "The number of runs waiting in the installation queues")
+    private Integer scheduledCount;
+
+    @ApiModelProperty(notes = "The number of runs being executed")
+    private Integer executingCount;
+
+    @ApiModelProperty(notes = "The number of finished runs")
+    private Integer doneCount;
+
+    @ApiModelProperty(notes = "The number of failed runs")
+    private Integer failedCount;
+
+    @ApiModelProperty(notes = "The number of runs stopped by their timeout")
+    private Integer timedOutCount;
+
+    @ApiModelProperty(notes = "The number of cancelled runs")
+    private Integer cancelledCount;
+
+    @ApiModelProperty(notes = "The number of runs stopped by a restart of the service")
+    private Integer interruptedCount;
+
+    @ApiModelProperty(notes = "The work time of the fastest finished run, ms")
+    private Long bestWorkTime;
+
+    @ApiModelProperty(notes = "The work time of the slowest finished run, ms")
+    private Long worstWorkTime;
+
+    public RunSummaryDto(RunSummary summary) {
+        this.runCount = summary.getRunCount();
+        this.scheduledCount = summary.getScheduledCount();
+        this.executingCount = summary.getExecutingCount();
+        this.doneCount = summary.getDoneCount();
+        this.failedCount = summary.getFailedCount();
+        this.timedOutCount = summary.getTimedOutCount();
+        this.cancelledCount = summary.getCancelledCount();
+        this.interruptedCount = summary.getInterruptedCount();
+        this.bestWorkTime = summary.getBestWorkTime();
+        this.worstWorkTime = summary.getWorstWorkTime();
+    }
+}
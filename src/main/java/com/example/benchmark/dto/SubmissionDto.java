@@ -0,0 +1,20 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.Version;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+@Getter
+public class SubmissionDto {
+
+    @ApiModelProperty(notes = "The database generated query ID")
+    private Long queryId;
+
+    @ApiModelProperty(notes = "The ID of the version to follow, a fresh identical version is reused")
+    private Long versionId;
+
+    public SubmissionDto(Version version) {
+        this.queryId = version.getQuery().getId();
+        this.versionId = version.getId();
+    }
+}
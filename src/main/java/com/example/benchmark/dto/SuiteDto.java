@@ -0,0 +1,50 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.RunSummary;
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Suite;
+import com.example.benchmark.model.Version;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.stream.Collectors.toList;
+
+@Getter
+public class SuiteDto {
+
+    @ApiModelProperty(notes = "The database generated suite ID")
+    private Long id;
+
+    @ApiModelProperty(notes = "The name of the suite")
+    private String name;
+
+    @ApiModelProperty(notes = "The timestamp of the suite submission")
+    private LocalDateTime created;
+
+    @ApiModelProperty(notes = "The status of the suite derived from the runs of all its versions")
+    private Status status;
+
+    @ApiModelProperty(notes = "The run counters and work times of all versions of the suite")
+    private RunSummaryDto summary;
+
+    @ApiModelProperty(notes = "The versions of the suite without their runs")
+    private List<VersionSummaryDto> versions;
+
+    public SuiteDto(Suite suite) {
+        this.id = suite.getId();
+        this.name = suite.getName();
+        this.created = suite.getCreated();
+        RunSummary total = new RunSummary();
+        suite.getVersions().stream()
+                .map(Version::getSummary)
+                .filter(Objects::nonNull)
+                .forEach(total::add);
+        this.status = total.getStatus();
+        this.summary = new RunSummaryDto(total);
+        this.versions = suite.getVersions().stream().map(VersionSummaryDto::new).collect(toList());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.service.VersionComparison;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@Getter
+public class VersionComparisonDto {
+
+    @ApiModelProperty(notes = "The compared query version ID")
+    private Long versionId;
+
+    @ApiModelProperty(notes = "The baseline query version ID")
+    private Long baselineId;
+
+    @ApiModelProperty(notes = "The tolerated slowdown, 0.05 is 5%")
+    private double threshold;
+
+    @ApiModelProperty(notes = "All runs of both versions are done and compared")
+    private boolean complete;
+
+    @ApiModelProperty(notes = "At least one DB installation regressed")
+    private boolean regression;
+
+    @ApiModelProperty(notes = "The plan changed on at least one DB installation")
+    private boolean planChanged;
+
+    @ApiModelProperty(notes = "The comparison per DB installation")
+    private List<RunComparisonDto> installations;
+
+    public VersionComparisonDto(VersionComparison comparison) {
+        this.versionId = comparison.getVersionId();
+        this.baselineId = comparison.getBaselineId();
+        this.threshold = comparison.getThreshold();
+        this.complete = comparison.isComplete();
+        this.regression = comparison.isRegression();
+        this.planChanged = comparison.isPlanChanged();
+        this.installations = comparison.getInstallations().stream().map(RunComparisonDto::new).collect(toList());
+    }
+}
@@ -28,12 +28,53 @@ public class VersionDto {
     @ApiModelProperty(notes = "The status of the query version execution")
     private Status status;
 
+    @ApiModelProperty(notes = "The run counters and work times of the query version")
+    private RunSummaryDto summary;
+
+    @ApiModelProperty(notes = "The measurement options of the query version runs")
+    private RunOptionsDto options;
+
+    @ApiModelProperty(notes = "The bind sets of the txt placeholders as CSV, one per line")
+    private String bindRows;
+
+    @ApiModelProperty(notes = "The query returning the bind sets on every DB installation")
+    private String bindQuery;
+
+    @ApiModelProperty(notes = "The statements executed on the connection of every run before txt")
+    private String setup;
+
+    @ApiModelProperty(notes = "The statements executed on the connection of every run after txt")
+    private String teardown;
+
+    @ApiModelProperty(notes = "The load test options, set if the version was executed as a load test")
+    private LoadTestOptionsDto loadTest;
+
     public VersionDto(Version version) {
         this.id = version.getId();
         this.txt = version.getTxt();
         this.created = version.getCreated();
         runs = version.getRuns().stream().map(RunDto::new).collect(toList());
-        status = calculateStatus(runs);
+        if (version.getSummary() != null) {
+            status = version.getSummary().getStatus();
+            summary = new RunSummaryDto(version.getSummary());
+        } else {
+            // versions stored before the run summary was introduced
+            status = calculateStatus(runs);
+        }
+        if (version.getOptions() != null) {
+            options = new RunOptionsDto(version.getOptions());
+        }
+        if (version.getBindSource() != null) {
+            bindRows = version.getBindSource().getBindRows();
+            bindQuery = version.getBindSource().getBindQuery();
+        }
+        if (version.getScript() != null) {
+            setup = version.getScript().getSetup();
+            teardown = version.getScript().getTeardown();
+        }
+        if (version.getLoadTest() != null) {
+            loadTest = new LoadTestOptionsDto(version.getLoadTest());
+        }
     }
 
     private Status calculateStatus(List<RunDto> runs) {
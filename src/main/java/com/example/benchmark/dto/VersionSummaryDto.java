@@ -0,0 +1,44 @@
+package com.example.benchmark.dto;
+
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Version;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/* A version without its runs, built from the stored run summary only */
+@Getter
+public class VersionSummaryDto {
+
+    @ApiModelProperty(notes = "The database generated query version ID")
+    private Long id;
+
+    @ApiModelProperty(notes = "The name of the query")
+    private String queryName;
+
+    @ApiModelProperty(notes = "The content of the query, code itself")
+    private String txt;
+
+    @ApiModelProperty(notes = "The timestamp of the query version")
+    private LocalDateTime created;
+
+    @ApiModelProperty(notes = "The status of the query version execution")
+    private Status status;
+
+    @ApiModelProperty(notes = "The run counters and work times of the query version")
+    private RunSummaryDto summary;
+
+    public VersionSummaryDto(Version version) {
+        this.id = version.getId();
+        if (version.getQuery() != null) {
+            this.queryName = version.getQuery().getName();
+        }
+        this.txt = version.getTxt();
+        this.created = version.getCreated();
+        if (version.getSummary() != null) {
+            status = version.getSummary().getStatus();
+            summary = new RunSummaryDto(version.getSummary());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.Lob;
+
+/* The parameter rows of a version with placeholders, one of them is bound per execution.
+ * The rows are either stored as CSV or read on every installation by a query before the run */
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BindSource {
+
+    // one bind set per line, quoted values are strings, unquoted ones numbers, an empty value is null
+    @Lob
+    private String bindRows;
+
+    @Column(length = 1024)
+    private String bindQuery;
+}
@@ -0,0 +1,8 @@
+package com.example.benchmark.model;
+
+public enum CacheMode {
+    // the iterations find the caches as the previous ones left them
+    WARM,
+    // the cache reset statements of the installation are executed before every iteration, not timed
+    COLD
+}
@@ -0,0 +1,8 @@
+package com.example.benchmark.model;
+
+public enum ConnectionMode {
+    // a connection of the installation pool, kept by the run for all its iterations, session caches of earlier runs stay warm
+    DEDICATED,
+    // a new physical connection opened for the run and closed after it, no session state of earlier runs
+    FRESH
+}
@@ -0,0 +1,39 @@
+package com.example.benchmark.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/* Stores named numbers in one column as name=value pairs, keeps a run a single row */
+@Converter
+public class CounterMapConverter implements AttributeConverter<Map<String, Long>, String> {
+
+    private static final String DELIMITER = ",";
+
+    private static final String SEPARATOR = "=";
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, Long> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.entrySet().stream()
+                .map(entry -> entry.getKey() + SEPARATOR + entry.getValue())
+                .collect(Collectors.joining(DELIMITER));
+    }
+
+    @Override
+    public Map<String, Long> convertToEntityAttribute(String column) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        if (column == null || column.isEmpty()) {
+            return values;
+        }
+        for (String pair : column.split(DELIMITER)) {
+            int idx = pair.lastIndexOf(SEPARATOR);
+            values.put(pair.substring(0, idx), Long.valueOf(pair.substring(idx + 1)));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.benchmark.model;
+
+public enum FetchMode {
+    // execute the statement only, the result set is not read
+    EXECUTE,
+    // execute the statement and drain the whole result set
+    FETCH,
+    // like FETCH, but asks the driver to stream rows one by one when it supports it
+    STREAM
+}
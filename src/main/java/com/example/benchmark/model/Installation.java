@@ -0,0 +1,63 @@
+package com.example.benchmark.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.regex.Pattern;
+
+@Entity
+@Table(indexes = {@Index(name = "idx_installation_status", columnList = "status")})
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@ToString(exclude = "password")
+public class Installation {
+
+    // a password in the parameters of the url or in its user info
+    private static final Pattern URL_PASSWORD = Pattern.compile("(?i)(password=)[^&;]*|(//[^/:@]*:)[^/@]*(@)");
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    private String jdbcUrl;
+
+    private String driverClassName;
+
+    private String username;
+
+    // only installations added at runtime keep it, the configured ones take it from application.properties.
+    // Stored as it is, it never leaves the service: not in the responses, nor in the logs
+    @JsonIgnore
+    private String password;
+
+    private Integer poolSize;
+
+    private Integer concurrency;
+
+    private Integer queueCapacity;
+
+    // statements separated by semicolons resetting the caches of the DB before every iteration of a COLD run
+    @Column(length = 1024)
+    private String cacheReset;
+
+    // declared in application.properties, registered again on every start
+    private boolean configured;
+
+    @Enumerated(EnumType.STRING)
+    private InstallationStatus status;
+
+    private LocalDateTime created;
+
+    /* The url for the responses and the logs, with its password masked */
+    public static String maskPassword(String jdbcUrl) {
+        return jdbcUrl == null ? null : URL_PASSWORD.matcher(jdbcUrl).replaceAll("$1$2***$3");
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.benchmark.model;
+
+/* ACTIVE installations get the runs of new versions, DRAINING ones only finish their queues,
+ * REMOVED ones are kept for the history of their runs */
+public enum InstallationStatus {
+    ACTIVE, DRAINING, REMOVED
+}
@@ -0,0 +1,20 @@
+package com.example.benchmark.model;
+
+import java.sql.Connection;
+
+public enum IsolationLevel {
+    READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
+    READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+    REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+    SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+    private final int jdbcLevel;
+
+    IsolationLevel(int jdbcLevel) {
+        this.jdbcLevel = jdbcLevel;
+    }
+
+    public int getJdbcLevel() {
+        return jdbcLevel;
+    }
+}
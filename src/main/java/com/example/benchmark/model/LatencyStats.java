@@ -0,0 +1,32 @@
+package com.example.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Embeddable;
+
+/* Latency distribution of the measured iterations, all values are in nanoseconds */
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class LatencyStats {
+
+    private Integer sampleCount;
+
+    private Long minTime;
+
+    private Long meanTime;
+
+    private Long p50Time;
+
+    private Long p90Time;
+
+    private Long p99Time;
+
+    private Long maxTime;
+
+    private Double stdDevTime;
+
+}
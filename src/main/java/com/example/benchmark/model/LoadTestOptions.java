@@ -0,0 +1,24 @@
+package com.example.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Embeddable;
+
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class LoadTestOptions {
+
+    // virtual clients executing the query at once against every DB installation
+    private Integer clients = 1;
+
+    // executions per second of all clients together, as fast as possible if not set
+    private Integer targetQps;
+
+    // seconds the load is applied for
+    private Integer duration = 10;
+
+}
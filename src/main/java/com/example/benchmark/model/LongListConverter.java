@@ -0,0 +1,31 @@
+package com.example.benchmark.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/* Stores a list of numbers in one column, keeps a run a single row */
+@Converter
+public class LongListConverter implements AttributeConverter<List<Long>, String> {
+
+    private static final String DELIMITER = ",";
+
+    @Override
+    public String convertToDatabaseColumn(List<Long> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.stream().map(String::valueOf).collect(Collectors.joining(DELIMITER));
+    }
+
+    @Override
+    public List<Long> convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(column.split(DELIMITER)).map(Long::valueOf).collect(Collectors.toList());
+    }
+}
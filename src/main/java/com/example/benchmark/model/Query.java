@@ -8,6 +8,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.validation.constraints.NotNull;
 
 @Entity
@@ -16,8 +17,10 @@ import javax.validation.constraints.NotNull;
 @Data
 public class Query {
 
+    // pooled ids let the inserts of many rows go in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "query_seq")
+    @SequenceGenerator(name = "query_seq", sequenceName = "query_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
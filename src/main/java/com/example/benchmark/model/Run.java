@@ -6,19 +6,31 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_run_version", columnList = "fk_version"),
+        @Index(name = "idx_run_status", columnList = "status"),
+        @Index(name = "idx_run_installation", columnList = "fk_installation")})
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
 public class Run {
 
+    // pooled ids let the inserts of many rows go in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "run_seq")
+    @SequenceGenerator(name = "run_seq", sequenceName = "run_seq", allocationSize = 50)
     private Long id;
 
-    @NotNull
-    private String jdbcUrl;
+    // always set, nullable in the table only so that the column can be added to the runs of an earlier build
+    @ManyToOne
+    @JoinColumn(name = "fk_installation")
+    private Installation installation;
 
     @Enumerated(EnumType.STRING)
     private Status status;
@@ -29,4 +41,71 @@ public class Run {
     @ManyToOne
     @JoinColumn(name = "fk_version", nullable = false)
     private Version version;
-}
\ No newline at end of file
+
+    @Embedded
+    private LatencyStats stats;
+
+    // time to get a connection from the installation pool, not included into the measured time, ns
+    private Long connectionAcquireTime;
+
+    // result set consumption of the measured iterations, times are means in nanoseconds
+    private Long firstRowTime;
+
+    private Long fetchTime;
+
+    private Long rowCount;
+
+    private Long bytesRead;
+
+    // setup and teardown of the version script, ns, not included into the measured time
+    private Long setupTime;
+
+    private Long teardownTime;
+
+    // the run fails if its setup fails, a teardown failure leaves the measurements as they are
+    @Column(length = 1024)
+    private String setupError;
+
+    @Column(length = 1024)
+    private String teardownError;
+
+    // bind sets of a parameterized version the run cycled through, measured iteration i used bind set i % bindSetCount
+    private Integer bindSetCount;
+
+    // EXPLAIN output of the installation and the hash of its normalized shape
+    @Lob
+    private String plan;
+
+    private String planFingerprint;
+
+    // load test results, the latency distribution is kept in stats
+    private Long operations;
+
+    private Long errors;
+
+    private Double errorRate;
+
+    // executions per second
+    private Double throughput;
+
+    // base64 of the compressed HdrHistogram of latencies, ns
+    @Lob
+    private String histogram;
+
+    // raw timings of the measured iterations, nanoseconds
+    @Lob
+    @Convert(converter = LongListConverter.class)
+    private List<Long> samples = new ArrayList<>();
+
+    // server side counters summed over the measured iterations, e.g. Handler_read_rnd_next on MySQL
+    @Lob
+    @Convert(converter = CounterMapConverter.class)
+    private Map<String, Long> counters = new LinkedHashMap<>();
+
+    public Run(Installation installation, Status status, Version version) {
+        this.installation = installation;
+        this.status = status;
+        this.workTime = 0L;
+        this.version = version;
+    }
+}
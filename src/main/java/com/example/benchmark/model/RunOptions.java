@@ -0,0 +1,55 @@
+package com.example.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class RunOptions {
+
+    // every measured sample is kept in memory and stored with the run
+    public static final int MAX_ITERATIONS = 100_000;
+
+    // iterations executed before measuring, their timings are dropped
+    private Integer warmupIterations = 0;
+
+    // measured iterations per DB installation
+    private Integer iterations = 1;
+
+    @Enumerated(EnumType.STRING)
+    private FetchMode fetchMode = FetchMode.EXECUTE;
+
+    // rows per round trip while fetching, driver default if not set
+    private Integer fetchSize;
+
+    // seconds the run may take with all its iterations, the default timeout if not set
+    private Integer timeout;
+
+    // explain the query before the measured execution
+    private Boolean explain = false;
+
+    // where the connection of the run comes from, DEDICATED if not set
+    @Enumerated(EnumType.STRING)
+    private ConnectionMode connectionMode = ConnectionMode.DEDICATED;
+
+    // the connection settings of the run, the ones of the pool are kept if not set
+    @Enumerated(EnumType.STRING)
+    private IsolationLevel isolation;
+
+    private Boolean readOnly;
+
+    // without autocommit all iterations run in one transaction, it is rolled back at the end of the run
+    private Boolean autoCommit;
+
+    // COLD resets the caches of the installation before every iteration, WARM if not set
+    @Enumerated(EnumType.STRING)
+    private CacheMode cacheMode = CacheMode.WARM;
+
+}
@@ -0,0 +1,92 @@
+package com.example.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+
+/* Aggregate state of the version runs, kept up to date as the runs change their status */
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class RunSummary {
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.SCHEDULED;
+
+    private Integer runCount = 0;
+
+    private Integer scheduledCount = 0;
+
+    private Integer executingCount = 0;
+
+    private Integer doneCount = 0;
+
+    private Integer failedCount = 0;
+
+    private Integer timedOutCount = 0;
+
+    private Integer cancelledCount = 0;
+
+    private Integer interruptedCount = 0;
+
+    // work time of the fastest and the slowest finished run, ms
+    private Long bestWorkTime;
+
+    private Long worstWorkTime;
+
+    public static RunSummary scheduled(int runCount) {
+        RunSummary summary = new RunSummary();
+        summary.setRunCount(runCount);
+        summary.setScheduledCount(runCount);
+        return summary;
+    }
+
+    /* Adds the counters of another summary, e.g. to get the state of the versions of a suite */
+    public RunSummary add(RunSummary other) {
+        runCount += other.runCount;
+        scheduledCount += other.scheduledCount;
+        executingCount += other.executingCount;
+        doneCount += other.doneCount;
+        failedCount += other.failedCount;
+        timedOutCount += other.timedOutCount;
+        cancelledCount += other.cancelledCount;
+        interruptedCount += other.interruptedCount;
+        if (other.bestWorkTime != null && (bestWorkTime == null || other.bestWorkTime < bestWorkTime)) {
+            bestWorkTime = other.bestWorkTime;
+        }
+        if (other.worstWorkTime != null && (worstWorkTime == null || other.worstWorkTime > worstWorkTime)) {
+            worstWorkTime = other.worstWorkTime;
+        }
+        status = calculateStatus();
+        return this;
+    }
+
+    /* The version status derived from the counters: a failed, timed out or interrupted run gives the version
+     * its status, the version is done when all its runs are done */
+    public Status calculateStatus() {
+        if (failedCount > 0) {
+            return Status.FAILED;
+        }
+        if (timedOutCount > 0) {
+            return Status.TIMED_OUT;
+        }
+        if (interruptedCount > 0) {
+            return Status.INTERRUPTED;
+        }
+        if (executingCount > 0) {
+            return Status.EXECUTING;
+        }
+        if (cancelledCount > 0) {
+            return Status.CANCELLED;
+        }
+        if (runCount > 0 && doneCount.equals(runCount)) {
+            return Status.DONE;
+        }
+        return Status.SCHEDULED;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Embeddable;
+import javax.persistence.Lob;
+
+/* The statements a run executes on its connection around the measured txt, they aren't timed.
+ * Setup is executed before the warmup iterations, teardown after the last iteration even if the run failed */
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SessionScript {
+
+    // statements separated by semicolons, e.g. temp tables, session variables or a cache flush
+    @Lob
+    private String setup;
+
+    @Lob
+    private String teardown;
+}
@@ -1,5 +1,10 @@
 package com.example.benchmark.model;
 
 public enum Status {
-    SCHEDULED, EXECUTING, DONE, FAILED
-}
\ No newline at end of file
+    SCHEDULED, EXECUTING, DONE, FAILED, TIMED_OUT, CANCELLED, INTERRUPTED;
+
+    /* The run won't change any more */
+    public boolean isFinished() {
+        return this != SCHEDULED && this != EXECUTING;
+    }
+}
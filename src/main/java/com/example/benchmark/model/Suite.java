@@ -0,0 +1,34 @@
+package com.example.benchmark.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/* Versions of many queries submitted in one request, their runs are queued together */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@ToString(exclude = "versions")
+@EqualsAndHashCode(exclude = "versions")
+public class Suite {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "suite_seq")
+    @SequenceGenerator(name = "suite_seq", sequenceName = "suite_seq", allocationSize = 1)
+    private Long id;
+
+    private String name;
+
+    private LocalDateTime created;
+
+    @OneToMany(mappedBy = "suite")
+    @OrderBy("id")
+    private List<Version> versions;
+}
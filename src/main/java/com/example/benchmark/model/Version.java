@@ -10,18 +10,28 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_version_query_created", columnList = "fk_query, created"),
+        @Index(name = "idx_version_query_status", columnList = "fk_query, status"),
+        @Index(name = "idx_version_suite", columnList = "fk_suite")})
 @AllArgsConstructor
 @Data
 public class Version {
 
+    // pooled ids let the inserts of many rows go in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "version_seq")
+    @SequenceGenerator(name = "version_seq", sequenceName = "version_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
     @Size(max = 1024)
     private String txt;
 
+    // hash of the normalized txt, versions of a query with the same hash have the same SQL
+    @Column(length = 64)
+    private String sqlHash;
+
     private LocalDateTime created;
 
     public Version() {
@@ -33,6 +43,31 @@ public class Version {
     private Query query;
 
     @OneToMany(mappedBy = "version", orphanRemoval = true)
+    @OrderBy("id")
     private List<Run> runs;
 
+    @Embedded
+    private RunOptions options;
+
+    // the parameters of the placeholders in txt, null if txt has none
+    @Embedded
+    private BindSource bindSource;
+
+    // the setup and teardown statements around txt, null if the version has none
+    @Embedded
+    private SessionScript script;
+
+    // set for the versions executed as a load test
+    @Embedded
+    private LoadTestOptions loadTest;
+
+    // maintained by the run journal, so the version status is read without its runs
+    @Embedded
+    private RunSummary summary;
+
+    // set for the versions submitted together as a suite
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "fk_suite")
+    private Suite suite;
+
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.BindSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.joining;
+
+/* The parameter rows of parameterized versions. Stored rows are CSV: one bind set per line, quoted values
+ * are strings (a quote is doubled inside), unquoted ones are integers or decimals, an empty value is NULL */
+public final class BindSets {
+
+    private static final Pattern INTEGER = Pattern.compile("[-+]?\\d+");
+
+    private static final Pattern DECIMAL = Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+
+    private BindSets() {
+    }
+
+    /* The bind sets of the version on the connection of the run, the bind query is executed on the installation */
+    public static List<List<Object>> load(Connection con, BindSource source) throws SQLException {
+        List<List<Object>> bindSets = Objects.isNull(source.getBindQuery())
+                ? parse(source.getBindRows())
+                : query(con, source.getBindQuery());
+        if (bindSets.isEmpty()) {
+            throw new SQLException("The version has placeholders, but its bind source has no rows");
+        }
+        return bindSets;
+    }
+
+    public static void bind(PreparedStatement ps, List<Object> bindSet) throws SQLException {
+        for (int i = 0; i < bindSet.size(); i++) {
+            ps.setObject(i + 1, bindSet.get(i));
+        }
+    }
+
+    public static List<List<Object>> parse(String csv) {
+        if (Objects.isNull(csv)) {
+            return Collections.emptyList();
+        }
+        List<List<Object>> rows = new ArrayList<>();
+        List<Object> row = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        for (int i = 0; i <= csv.length(); i++) {
+            char c = i < csv.length() ? csv.charAt(i) : '\n';
+            if (inQuotes) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    value.append(c);
+                    i++;
+                } else if (c == '"') {
+                    inQuotes = false;
+                } else if (i < csv.length()) {
+                    value.append(c);
+                } else {
+                    throw new IllegalArgumentException("Unterminated quoted value in the bind rows");
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',' || c == '\n') {
+                row.add(quoted ? value.toString() : toValue(value.toString().trim()));
+                value.setLength(0);
+                quoted = false;
+                if (c == '\n') {
+                    // blank lines don't make bind sets
+                    if (row.size() > 1 || row.get(0) != null) {
+                        rows.add(row);
+                    }
+                    row = new ArrayList<>();
+                }
+            } else if (c != '\r') {
+                value.append(c);
+            }
+        }
+        return rows;
+    }
+
+    /* The inverse of parse, strings are always quoted so they stay strings */
+    public static String format(List<List<Object>> rows) {
+        return rows.stream()
+                .map(row -> row.stream().map(BindSets::formatValue).collect(joining(",")))
+                .collect(joining("\n"));
+    }
+
+    private static Object toValue(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (INTEGER.matcher(value).matches()) {
+            return value.length() < 19 ? (Object) Long.valueOf(value) : new BigDecimal(value);
+        }
+        if (DECIMAL.matcher(value).matches()) {
+            return new BigDecimal(value);
+        }
+        return value;
+    }
+
+    private static String formatValue(Object value) {
+        if (Objects.isNull(value)) {
+            return "";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return '"' + value.toString().replace("\"", "\"\"") + '"';
+    }
+
+    private static List<List<Object>> query(Connection con, String sql) throws SQLException {
+        List<List<Object>> rows = new ArrayList<>();
+        try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                List<Object> row = new ArrayList<>(columns);
+                for (int col = 1; col <= columns; col++) {
+                    row.add(rs.getObject(col));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
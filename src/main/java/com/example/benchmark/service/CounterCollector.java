@@ -0,0 +1,16 @@
+package com.example.benchmark.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/* Reads the server side counters of a DB dialect, e.g. rows examined or temp tables created.
+ * A run takes snapshots on its connection around the measured iterations and keeps the deltas */
+public interface CounterCollector {
+
+    // the database product name reported by the driver
+    boolean supports(String databaseProductName);
+
+    // the current values by counter name, a counter the DB can't report right now is left out
+    Map<String, Long> snapshot(Connection con) throws SQLException;
+}
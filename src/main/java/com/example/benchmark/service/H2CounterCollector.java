@@ -0,0 +1,43 @@
+package com.example.benchmark.service;
+
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* H2 has no session counters. It reports the statements and rows of the whole database
+ * when query statistics are on (SET QUERY_STATISTICS TRUE) and file reads/writes of persistent databases */
+@Component
+public class H2CounterCollector implements CounterCollector {
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "H2".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public Map<String, Long> snapshot(Connection con) throws SQLException {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        try (Statement stmt = con.createStatement()) {
+            // H2 reuses the result of a repeated deterministic query, RAND() makes every snapshot read the table
+            try (ResultSet rs = stmt.executeQuery("SELECT SUM(EXECUTION_COUNT), SUM(CUMULATIVE_ROW_COUNT) " +
+                    "FROM INFORMATION_SCHEMA.QUERY_STATISTICS WHERE RAND() >= 0")) {
+                if (rs.next() && rs.getObject(1) != null) {
+                    counters.put("statements", rs.getLong(1));
+                    counters.put("rows", rs.getLong(2));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT NAME, VALUE FROM INFORMATION_SCHEMA.SETTINGS " +
+                    "WHERE NAME IN ('info.FILE_READ', 'info.FILE_WRITE') AND RAND() >= 0")) {
+                while (rs.next()) {
+                    counters.put(rs.getString(1).substring("info.".length()).toLowerCase(), Long.valueOf(rs.getString(2)));
+                }
+            }
+        }
+        return counters;
+    }
+}
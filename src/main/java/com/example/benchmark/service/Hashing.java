@@ -0,0 +1,62 @@
+package com.example.benchmark.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /* Hash of the SQL text with insignificant whitespace and trailing semicolons dropped,
+     * string literals and quoted identifiers are kept as they are */
+    public static String sqlHash(String sql) {
+        return sha256(normalizeSql(sql));
+    }
+
+    static String normalizeSql(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean space = false;
+        boolean escaped = false;
+        for (char c : sql.trim().toCharArray()) {
+            if (quote == 0 && Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                normalized.append(' ');
+                space = false;
+            }
+            if (quote == 0 && (c == '\'' || c == '"' || c == '`')) {
+                quote = c;
+            } else if (c == quote && !escaped) {
+                quote = 0;
+            }
+            // MySQL escapes quotes in literals with a backslash
+            escaped = quote != 0 && c == '\\' && !escaped;
+            normalized.append(c);
+        }
+        int end = normalized.length();
+        while (end > 0 && (normalized.charAt(end - 1) == ';' || normalized.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    // hex encoded SHA-256 of the UTF-8 bytes of the text
+    public static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
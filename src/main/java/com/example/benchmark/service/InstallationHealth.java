@@ -0,0 +1,183 @@
+package com.example.benchmark.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+
+/* Availability of the DB installations. Pings are cached for a while, so health checks don't load the DBs.
+ * Every installation has a circuit breaker: it opens after a number of connection failures in a row,
+ * then the runs of the installation wait in the queue instead of failing one by one on connection timeouts.
+ * The breaker closes by itself as soon as a ping gets through. */
+@Component
+public class InstallationHealth {
+
+    public enum Circuit {
+        CLOSED, OPEN
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final MeterRegistry registry;
+
+    private final Map<Long, State> installations = new ConcurrentHashMap<>();
+
+    // ms a ping result is reused for
+    @Value("${benchmark.health.cache-ttl:10000}")
+    private long cacheTtl;
+
+    // seconds a connection may take to prove it is valid
+    @Value("${benchmark.health.ping-timeout:5}")
+    private int pingTimeout;
+
+    // connection failures in a row opening the circuit
+    @Value("${benchmark.health.failure-threshold:1}")
+    private int failureThreshold;
+
+    // ms between pings of an installation with an open circuit
+    @Value("${benchmark.health.retry-interval:10000}")
+    private long retryInterval;
+
+    @Autowired
+    public InstallationHealth(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void add(long installationId, JdbcTemplate jdbcTemplate) {
+        State state = new State(jdbcTemplate);
+        installations.put(installationId, state);
+        Gauge.builder("benchmark.installation.circuit", state, i -> i.circuit == Circuit.OPEN ? 1 : 0)
+                .description("1 while the DB installation is unreachable and its runs are held")
+                .tag("installation", String.valueOf(installationId))
+                .register(registry);
+    }
+
+    public void remove(long installationId) {
+        installations.remove(installationId);
+    }
+
+    public List<Long> getInstallationIds() {
+        return installations.keySet().stream().sorted().collect(toList());
+    }
+
+    /* A removed installation doesn't hold runs, they fail as its pool is closed */
+    public Circuit getCircuit(long installationId) {
+        State installation = installations.get(installationId);
+        return installation == null ? Circuit.CLOSED : installation.circuit;
+    }
+
+    public Health health(long installationId) {
+        State installation = installations.get(installationId);
+        if (installation == null) {
+            return Health.unknown().build();
+        }
+        if (System.currentTimeMillis() - installation.checkedAt >= cacheTtl) {
+            ping(installationId, installation);
+        }
+        Health.Builder health = installation.error == null ? Health.up() : Health.down().withDetail("error", installation.error);
+        return health.withDetail("circuit", installation.circuit)
+                .withDetail("checked", installation.checked)
+                .build();
+    }
+
+    public void recordSuccess(long installationId) {
+        State installation = installations.get(installationId);
+        if (installation == null) {
+            return;
+        }
+        installation.failures.set(0);
+        if (installation.circuit == Circuit.OPEN) {
+            installation.circuit = Circuit.CLOSED;
+            logger.info(String.format("DB installation %d is reachable again, its runs are resumed", installationId));
+        }
+    }
+
+    public void recordFailure(long installationId) {
+        State installation = installations.get(installationId);
+        if (installation == null) {
+            return;
+        }
+        if (installation.failures.incrementAndGet() >= failureThreshold && installation.circuit == Circuit.CLOSED) {
+            installation.circuit = Circuit.OPEN;
+            logger.warn(String.format("DB installation %d is unreachable, its runs are held till it is back", installationId));
+        }
+    }
+
+    /* Holds the calling installation thread while the circuit is open, returns when the installation
+     * is reachable again or the run is aborted */
+    public void awaitAvailable(long installationId, RunControl control) {
+        State installation = installations.get(installationId);
+        while (installation != null && installation.circuit == Circuit.OPEN && !control.isAborted()) {
+            long wakeUpTime = System.currentTimeMillis() + retryInterval;
+            try {
+                // wake up often enough to notice a cancelled run
+                while (System.currentTimeMillis() < wakeUpTime && !control.isAborted()) {
+                    TimeUnit.MILLISECONDS.sleep(Math.min(100, retryInterval));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!control.isAborted()) {
+                ping(installationId, installation);
+            }
+        }
+    }
+
+    /* A connection error of a run, as opposed to an error of the query itself */
+    public static boolean isConnectionFailure(Throwable e) {
+        return e instanceof DataAccessResourceFailureException || e instanceof RecoverableDataAccessException;
+    }
+
+    private void ping(long installationId, State installation) {
+        String error = null;
+        try {
+            Boolean valid = installation.jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> con.isValid(pingTimeout));
+            if (!Boolean.TRUE.equals(valid)) {
+                error = "The connection is not valid";
+            }
+        } catch (DataAccessException e) {
+            error = e.getMessage();
+        }
+        installation.error = error;
+        installation.checked = LocalDateTime.now();
+        installation.checkedAt = System.currentTimeMillis();
+        if (error == null) {
+            recordSuccess(installationId);
+        } else {
+            recordFailure(installationId);
+        }
+    }
+
+    private static class State {
+        private final JdbcTemplate jdbcTemplate;
+        private volatile Circuit circuit = Circuit.CLOSED;
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile String error;
+        private volatile LocalDateTime checked;
+        // 0 makes the first health check ping the installation
+        private volatile long checkedAt;
+
+        private State(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+    }
+}
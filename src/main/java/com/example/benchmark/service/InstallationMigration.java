@@ -0,0 +1,44 @@
+package com.example.benchmark.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/* Moves the runs of an application DB created by an earlier build, which kept the url of the installation
+ * in Run.jdbc_url, to the Installation table. Every distinct url becomes a configured installation, so the ones
+ * still in application.properties are registered with their runs and the others are marked as removed.
+ * Safe to repeat: a migration stopped half way is finished on the next start */
+@Component
+public class InstallationMigration {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public InstallationMigration(DataSource appDataSource) {
+        this.jdbcTemplate = new JdbcTemplate(appDataSource);
+    }
+
+    /* Called before the installations are registered, once Hibernate has added the fk_installation column */
+    public void migrate() {
+        try {
+            jdbcTemplate.queryForList("select jdbc_url from run where 1 = 0");
+        } catch (DataAccessException e) {
+            // created by this build or migrated already
+            return;
+        }
+        int installations = jdbcTemplate.update("insert into installation (jdbc_url, configured, status, created) " +
+                "select distinct r.jdbc_url, true, 'ACTIVE', current_timestamp from run r " +
+                "where not exists (select 1 from installation i where i.jdbc_url = r.jdbc_url)");
+        int runs = jdbcTemplate.update("update run set fk_installation = " +
+                "(select min(i.id) from installation i where i.jdbc_url = run.jdbc_url) where fk_installation is null");
+        jdbcTemplate.execute("alter table run drop column jdbc_url");
+        logger.info(String.format("%d runs are moved to %d new DB installations", runs, installations));
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.config.DataSourceConfig;
+import com.example.benchmark.config.PropConfig;
+import com.example.benchmark.dao.InstallationRepository;
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.InstallationStatus;
+import com.example.benchmark.model.Status;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.benchmark.config.PropConfig.get;
+import static java.util.stream.Collectors.toList;
+
+/* The DB installations the runs are executed on. They are stored in the Installation table, the ones of
+ * application.properties are registered on every start, the others are added, drained and removed at runtime.
+ * Every live installation has its own connection pool, run queue and health state. */
+@Component
+public class InstallationRegistry {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private InstallationRepository installationRepository;
+
+    @Autowired
+    private RunScheduler scheduler;
+
+    @Autowired
+    private LoadTestDriver loadTestDriver;
+
+    @Autowired
+    private InstallationHealth installationHealth;
+
+    @Autowired
+    private RunControls runControls;
+
+    @Autowired
+    private InstallationMigration installationMigration;
+
+    private final List<JdbcTemplate> sources;
+
+    private final PropConfig props;
+
+    // seconds the runs of a removed installation get to stop before its pool is closed under them
+    @Value("${benchmark.installation.close-timeout:60}")
+    private long closeTimeout;
+
+    private final Map<Long, Entry> live = new ConcurrentHashMap<>();
+
+    // closes the pools of the removed installations
+    private final ExecutorService closer =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("installation-closer-"));
+
+    @Autowired
+    public InstallationRegistry(@Qualifier("sources") List<JdbcTemplate> sources, PropConfig props) {
+        this.sources = sources;
+        this.props = props;
+    }
+
+    @PostConstruct
+    public synchronized void init() {
+        installationMigration.migrate();
+        List<Installation> stored = installationRepository.findByStatusNotOrderById(InstallationStatus.REMOVED);
+        for (int idx = 0; idx < sources.size(); idx++) {
+            String url = getDbUrl(idx);
+            Installation installation = stored.stream()
+                    .filter(i -> i.isConfigured() && url.equals(i.getJdbcUrl()))
+                    .findFirst()
+                    .orElseGet(() -> new Installation(null, url, null, null, null, null, null, null, null, true,
+                            InstallationStatus.ACTIVE, LocalDateTime.now()));
+            stored.remove(installation);
+            installation.setDriverClassName(get(props.getDriverClassName(), idx, null));
+            installation.setUsername(get(props.getUsername(), idx, null));
+            DataSource dataSource = sources.get(idx).getDataSource();
+            installation.setPoolSize(dataSource instanceof HikariDataSource
+                    ? ((HikariDataSource) dataSource).getMaximumPoolSize() : null);
+            installation.setConcurrency(get(props.getConcurrency(), idx, RunScheduler.DEFAULT_CONCURRENCY));
+            installation.setQueueCapacity(get(props.getQueueCapacity(), idx, RunScheduler.DEFAULT_QUEUE_CAPACITY));
+            installation.setCacheReset(get(props.getCacheReset(), idx, null));
+            start(installationRepository.save(installation), sources.get(idx));
+        }
+        stored.forEach(installation -> {
+            if (installation.isConfigured()) {
+                // it isn't in application.properties any more
+                installation.setStatus(InstallationStatus.REMOVED);
+                installationRepository.save(installation);
+                logger.info(String.format("DB installation %d %s is removed from the configuration",
+                        installation.getId(), Installation.maskPassword(installation.getJdbcUrl())));
+            } else {
+                start(installation, new JdbcTemplate(openPool(installation)));
+            }
+        });
+    }
+
+    /* The installations getting the runs of new versions, in the order of their IDs */
+    public List<Installation> getActive() {
+        return live.values().stream()
+                .map(entry -> entry.installation)
+                .filter(installation -> installation.getStatus() == InstallationStatus.ACTIVE)
+                .sorted(Comparator.comparing(Installation::getId))
+                .collect(toList());
+    }
+
+    public List<Installation> listInstallations() {
+        return installationRepository.findAll();
+    }
+
+    public Optional<Installation> findInstallation(long installationId) {
+        return installationRepository.findById(installationId);
+    }
+
+    public boolean isLive(long installationId) {
+        return live.containsKey(installationId);
+    }
+
+    /* Null once the installation is removed */
+    public JdbcTemplate getJdbcTemplate(long installationId) {
+        Entry entry = live.get(installationId);
+        return entry == null ? null : entry.jdbcTemplate;
+    }
+
+    /* Opens the pool of a new installation and starts taking its runs.
+     * Throws IllegalArgumentException if the installation is already registered or its driver can't be loaded */
+    public synchronized Installation add(Installation request) {
+        if (live.values().stream().anyMatch(entry -> entry.installation.getJdbcUrl().equals(request.getJdbcUrl()))) {
+            throw new IllegalArgumentException(String.format("DB installation %s is already registered",
+                    Installation.maskPassword(request.getJdbcUrl())));
+        }
+        Installation installation = installationRepository.save(new Installation(null, request.getJdbcUrl(),
+                request.getDriverClassName(), request.getUsername(), request.getPassword(), request.getPoolSize(),
+                Optional.ofNullable(request.getConcurrency()).orElse(RunScheduler.DEFAULT_CONCURRENCY),
+                Optional.ofNullable(request.getQueueCapacity()).orElse(RunScheduler.DEFAULT_QUEUE_CAPACITY),
+                request.getCacheReset(), false, InstallationStatus.ACTIVE, LocalDateTime.now()));
+        HikariDataSource dataSource;
+        try {
+            dataSource = openPool(installation);
+        } catch (RuntimeException e) {
+            installationRepository.delete(installation);
+            throw new IllegalArgumentException(String.format("DB installation %s can't be added: %s",
+                    Installation.maskPassword(request.getJdbcUrl()), e.getMessage()), e);
+        }
+        installation.setPoolSize(dataSource.getMaximumPoolSize());
+        start(installationRepository.save(installation), new JdbcTemplate(dataSource));
+        return installation;
+    }
+
+    /* The installation doesn't get runs of new versions, the queued and executing ones are finished */
+    public synchronized Optional<Installation> drain(long installationId) {
+        return setStatus(installationId, InstallationStatus.DRAINING);
+    }
+
+    public synchronized Optional<Installation> activate(long installationId) {
+        return setStatus(installationId, InstallationStatus.ACTIVE);
+    }
+
+    /* Cancels the queued and executing runs of the installation and closes its pool once they are gone.
+     * The installation is kept in the table with its runs */
+    public synchronized Optional<Installation> remove(long installationId) {
+        Entry entry = live.remove(installationId);
+        if (entry == null) {
+            return findInstallation(installationId);
+        }
+        Installation installation = entry.installation;
+        installation.setStatus(InstallationStatus.REMOVED);
+        installationRepository.save(installation);
+
+        // the cancelled runs leave the queue one by one without touching the DB
+        runControls.getByInstallation(installationId).forEach(control -> control.abort(Status.CANCELLED));
+        ExecutorService executor = scheduler.remove(installationId);
+        ExecutorService coordinator = loadTestDriver.remove(installationId);
+        installationHealth.remove(installationId);
+        DataSource dataSource = entry.jdbcTemplate.getDataSource();
+        if (dataSource instanceof HikariDataSource) {
+            closer.execute(() -> {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(closeTimeout);
+                if (!awaitTermination(executor, deadline) || !awaitTermination(coordinator, deadline)) {
+                    logger.warn(String.format("DB installation %d runs haven't stopped in %d s, its pool is closed",
+                            installationId, closeTimeout));
+                }
+                ((HikariDataSource) dataSource).close();
+            });
+        }
+        logger.info(String.format("DB installation %d %s is removed", installationId,
+                Installation.maskPassword(installation.getJdbcUrl())));
+        return Optional.of(installation);
+    }
+
+    private Optional<Installation> setStatus(long installationId, InstallationStatus status) {
+        Entry entry = live.get(installationId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        entry.installation.setStatus(status);
+        installationRepository.save(entry.installation);
+        logger.info(String.format("DB installation %d %s is %s", installationId,
+                Installation.maskPassword(entry.installation.getJdbcUrl()), status));
+        return Optional.of(entry.installation);
+    }
+
+    private void start(Installation installation, JdbcTemplate jdbcTemplate) {
+        scheduler.add(installation.getId(), installation.getConcurrency(), installation.getQueueCapacity());
+        installationHealth.add(installation.getId(), jdbcTemplate);
+        live.put(installation.getId(), new Entry(installation, jdbcTemplate));
+    }
+
+    private static HikariDataSource openPool(Installation installation) {
+        return DataSourceConfig.openPool(DataSourceConfig.poolConfig("installation-" + installation.getId(),
+                installation.getDriverClassName(), installation.getJdbcUrl(), installation.getUsername(),
+                installation.getPassword(), installation.getPoolSize(), installation.getConcurrency()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closer.shutdownNow();
+    }
+
+    private static boolean awaitTermination(ExecutorService executor, long deadline) {
+        if (executor == null) {
+            return true;
+        }
+        try {
+            return executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String getDbUrl(int idx) {
+        DataSource dataSource = sources.get(idx).getDataSource();
+        String defaultUrl = dataSource instanceof HikariDataSource
+                ? ((HikariDataSource) dataSource).getJdbcUrl() : String.format("DB installation %d", idx);
+        return get(props.getUrl(), idx, defaultUrl);
+    }
+
+    private static class Entry {
+        private final Installation installation;
+        private final JdbcTemplate jdbcTemplate;
+
+        private Entry(Installation installation, JdbcTemplate jdbcTemplate) {
+            this.installation = installation;
+            this.jdbcTemplate = jdbcTemplate;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.config.DataSourceConfig;
+import com.example.benchmark.model.BindSource;
+import com.example.benchmark.model.LoadTestOptions;
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.SessionScript;
+import com.example.benchmark.model.Status;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/* Drives a query version with N virtual clients against a DB installation for a fixed duration.
+ * Load tests have their own threads, they never occupy the executors of isolated runs. Every load test
+ * has a thread and a connection per client, the connections come from a pool of its own, so the pool
+ * of the installation stays with the isolated runs */
+@Component
+public class LoadTestDriver {
+
+    // latencies above an hour are clamped, 3 significant digits
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.HOURS.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private QueryRunner queryRunner;
+
+    // seconds the clients get after the duration to finish their last statements when the load test has no timeout
+    @Value("${benchmark.load.stop-timeout:30}")
+    private int stopTimeout;
+
+    // clients of a load test on every DB installation, each of them opens a connection
+    @Value("${benchmark.load.max-clients:100}")
+    private int maxClients;
+
+    // one load test at a time per DB installation
+    private final Map<Long, ExecutorService> coordinators = new ConcurrentHashMap<>();
+
+    public void submit(long installationId, Runnable loadTest) {
+        coordinators.computeIfAbsent(installationId, id -> Executors.newSingleThreadExecutor(
+                new CustomizableThreadFactory(String.format("load-%d-", id))))
+                .execute(loadTest);
+    }
+
+    /* Stops taking load tests of the installation, the queued ones are still driven.
+     * Returns null if the installation had no load tests */
+    public ExecutorService remove(long installationId) {
+        ExecutorService coordinator = coordinators.remove(installationId);
+        if (coordinator != null) {
+            coordinator.shutdown();
+        }
+        return coordinator;
+    }
+
+    public void drive(JdbcTemplate jdbcTemplate, String sql, RunOptions options, LoadTestOptions load, Run run)
+            throws InterruptedException, ExecutionException, SQLException {
+        drive(jdbcTemplate, sql, null, null, options, load, run, new RunControl(run, 0));
+    }
+
+    /* The clients stop when the control is aborted, the load test then fails with CancellationException.
+     * It is timed out when the clients don't finish timeout seconds after the duration */
+    public void drive(JdbcTemplate jdbcTemplate, String sql, @Nullable BindSource bindSource, @Nullable SessionScript script,
+                      RunOptions options, LoadTestOptions load, Run run, RunControl control)
+            throws InterruptedException, ExecutionException, SQLException {
+        if (load.getClients() > maxClients) {
+            throw new IllegalArgumentException(String.format("%d clients are more than the %d a load test may have",
+                    load.getClients(), maxClients));
+        }
+        DataSource installationSource = jdbcTemplate.getDataSource();
+        HikariDataSource pool = installationSource instanceof HikariDataSource
+                ? openPool((HikariDataSource) installationSource, load.getClients()) : null;
+        DataSource dataSource = Objects.isNull(pool) ? installationSource : pool;
+        long durationNanos = TimeUnit.SECONDS.toNanos(load.getDuration());
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(
+                Objects.isNull(options.getTimeout()) || options.getTimeout() == 0 ? stopTimeout : options.getTimeout());
+        // every client keeps its own pace: clients * (1 / interval) = target QPS
+        long interval = load.getTargetQps() == null ? 0 : TimeUnit.SECONDS.toNanos(load.getClients()) / load.getTargetQps();
+
+        // every client keeps its own connection, they are opened before the clock starts
+        List<Connection> connections = new ArrayList<>(load.getClients());
+        List<PreparedStatement> statements = new ArrayList<>(load.getClients());
+        ExecutorService clients = null;
+        try {
+            for (int i = 0; i < load.getClients(); i++) {
+                connections.add(DataSourceUtils.getConnection(dataSource));
+            }
+            // every client session gets the setup of the version before the clock starts
+            if (!Objects.isNull(script)) {
+                long setupStartTime = System.nanoTime();
+                for (Connection con : connections) {
+                    try {
+                        queryRunner.executeScript(con, script.getSetup(), null);
+                    } catch (SQLException e) {
+                        run.setSetupError(QueryRunner.errorMessage(e));
+                        throw e;
+                    }
+                }
+                run.setSetupTime(System.nanoTime() - setupStartTime);
+            }
+            // the clients of a parameterized version keep their prepared statements and cycle through the bind sets
+            List<List<Object>> bindSets = null;
+            if (!Objects.isNull(bindSource)) {
+                bindSets = BindSets.load(connections.get(0), bindSource);
+                run.setBindSetCount(bindSets.size());
+                for (Connection con : connections) {
+                    statements.add(con.prepareStatement(sql));
+                }
+            }
+
+            clients = Executors.newFixedThreadPool(connections.size(), new CustomizableThreadFactory("load-client-"));
+            long startTime = System.nanoTime();
+            long deadline = startTime + durationNanos;
+            // the statements get the rest of the time as their query timeout
+            control.setDeadline(deadline + timeoutNanos);
+            List<Future<ClientResult>> results = new ArrayList<>(load.getClients());
+            for (int i = 0; i < connections.size(); i++) {
+                Connection con = connections.get(i);
+                // paced clients are spread evenly over the interval
+                long clientStartTime = startTime + i * (interval / connections.size());
+                Execution execution;
+                if (Objects.isNull(bindSets)) {
+                    execution = n -> queryRunner.iterate(con, sql, options, control);
+                } else {
+                    // the clients start at different bind sets
+                    PreparedStatement ps = statements.get(i);
+                    List<List<Object>> clientBindSets = bindSets;
+                    int offset = i;
+                    execution = n -> queryRunner.iterate(ps,
+                            clientBindSets.get((int) ((offset + n) % clientBindSets.size())), options, control);
+                }
+                results.add(clients.submit(() -> runClient(execution, clientStartTime, deadline, interval, control)));
+            }
+
+            Histogram histogram = new Histogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+            long errors = 0;
+            for (Future<ClientResult> result : results) {
+                ClientResult clientResult;
+                try {
+                    clientResult = result.get(control.getDeadline() - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // the statements still executing are cancelled
+                    control.abort(Status.TIMED_OUT);
+                    break;
+                }
+                histogram.add(clientResult.histogram);
+                errors += clientResult.errors;
+            }
+            // a cancelled or timed out load test has no results
+            control.checkAborted();
+            long elapsedTime = System.nanoTime() - startTime;
+            long operations = histogram.getTotalCount() + errors;
+
+            run.setOperations(operations);
+            run.setErrors(errors);
+            run.setErrorRate(operations == 0 ? 0 : (double) errors / operations);
+            run.setThroughput(histogram.getTotalCount() / (elapsedTime / (double) TimeUnit.SECONDS.toNanos(1)));
+            run.setStats(Statistics.latencyStats(histogram));
+            run.setHistogram(encode(histogram));
+            if (run.getStats() != null) {
+                run.setWorkTime(TimeUnit.NANOSECONDS.toMillis(run.getStats().getMeanTime()));
+            }
+        } finally {
+            if (clients != null) {
+                // the clients leave their connections before they are released
+                clients.shutdownNow();
+                awaitTermination(clients, timeoutNanos, run);
+            }
+            statements.forEach(JdbcUtils::closeStatement);
+            long teardownStartTime = System.nanoTime();
+            for (Connection con : connections) {
+                String error = Objects.isNull(script) ? null : queryRunner.teardown(con, script.getTeardown());
+                if (Objects.isNull(run.getTeardownError())) {
+                    run.setTeardownError(error);
+                }
+                QueryRunner.releaseConnection(con, dataSource, Objects.isNull(error));
+            }
+            if (!Objects.isNull(script)) {
+                run.setTeardownTime(System.nanoTime() - teardownStartTime);
+            }
+            if (!Objects.isNull(pool)) {
+                pool.close();
+            }
+        }
+    }
+
+    /* A connection per client with the settings of the installation pool */
+    private static HikariDataSource openPool(HikariDataSource installation, int clients) {
+        HikariConfig config = DataSourceConfig.poolConfig(installation.getPoolName() + "-load",
+                installation.getDriverClassName(), installation.getJdbcUrl(), installation.getUsername(),
+                installation.getPassword(), clients, null);
+        config.setConnectionTimeout(installation.getConnectionTimeout());
+        config.setValidationTimeout(installation.getValidationTimeout());
+        config.setConnectionTestQuery(installation.getConnectionTestQuery());
+        installation.getDataSourceProperties().forEach((name, value) -> config.addDataSourceProperty((String) name, value));
+        return new HikariDataSource(config);
+    }
+
+    private ClientResult runClient(Execution execution, long startTime, long deadline, long interval, RunControl control) {
+        ClientResult result = new ClientResult();
+        long executions = 0;
+        try {
+            long intendedStartTime = startTime;
+            while (intendedStartTime < deadline && !control.isAborted() && !Thread.currentThread().isInterrupted()) {
+                long now;
+                while ((now = System.nanoTime()) < intendedStartTime) {
+                    TimeUnit.NANOSECONDS.sleep(intendedStartTime - now);
+                }
+                // paced executions are timed from their planned start, so a slow DB can't hide queueing delays
+                long executionStartTime = interval == 0 ? now : intendedStartTime;
+                try {
+                    execution.execute(executions++);
+                    result.histogram.recordValue(
+                            Math.min(System.nanoTime() - executionStartTime, HIGHEST_TRACKABLE_LATENCY));
+                } catch (SQLException e) {
+                    result.errors++;
+                    logger.debug(e.getMessage());
+                }
+                intendedStartTime = interval == 0 ? System.nanoTime() : intendedStartTime + interval;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException e) {
+            // aborted between the check of the loop and the start of the statement
+        }
+        return result;
+    }
+
+    private void awaitTermination(ExecutorService clients, long timeoutNanos, Run run) {
+        try {
+            if (!clients.awaitTermination(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                logger.warn(String.format("Load test clients of run %d haven't stopped", run.getId()));
+            }
+        } catch (InterruptedException e) {
+            // the connections are released anyway
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.rewind();
+        buffer.get(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinators.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    @FunctionalInterface
+    private interface Execution {
+        void execute(long n) throws SQLException;
+    }
+
+    private static class ClientResult {
+        private final Histogram histogram = new Histogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+        private long errors;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.benchmark.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* The session status counters of the handler, sort, select and temp table operations,
+ * and the statement stats of the session thread in performance_schema if it is enabled and readable */
+@Component
+public class MySqlCounterCollector implements CounterCollector {
+
+    private static final String SESSION_STATUS = "SHOW SESSION STATUS WHERE Variable_name LIKE 'Handler\\_%' " +
+            "OR Variable_name LIKE 'Created\\_tmp\\_%' OR Variable_name LIKE 'Select\\_%' OR Variable_name LIKE 'Sort\\_%'";
+
+    // the summary of the statements of this connection, the column aliases are the counter names
+    private static final String THREAD_STATEMENTS = "SELECT SUM(s.SUM_ROWS_EXAMINED) AS rows_examined, " +
+            "SUM(s.SUM_ROWS_SENT) AS rows_sent, SUM(s.SUM_ROWS_AFFECTED) AS rows_affected, " +
+            "SUM(s.SUM_CREATED_TMP_TABLES) AS created_tmp_tables, SUM(s.SUM_CREATED_TMP_DISK_TABLES) AS created_tmp_disk_tables, " +
+            "SUM(s.SUM_SORT_ROWS) AS sort_rows, SUM(s.SUM_NO_INDEX_USED) AS no_index_used, SUM(s.SUM_LOCK_TIME) AS lock_time " +
+            "FROM performance_schema.events_statements_summary_by_thread_by_event_name s " +
+            "JOIN performance_schema.threads t ON t.THREAD_ID = s.THREAD_ID WHERE t.PROCESSLIST_ID = CONNECTION_ID()";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return databaseProductName.toLowerCase().contains("mysql");
+    }
+
+    @Override
+    public Map<String, Long> snapshot(Connection con) throws SQLException {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        try (Statement stmt = con.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(SESSION_STATUS)) {
+                while (rs.next()) {
+                    counters.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(THREAD_STATEMENTS)) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                while (rs.next()) {
+                    for (int col = 1; col <= metaData.getColumnCount(); col++) {
+                        long value = rs.getLong(col);
+                        // NULL sums if the instrumentation is off
+                        if (!rs.wasNull()) {
+                            counters.put("ps." + metaData.getColumnLabel(col), value);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                // performance_schema is disabled or not readable by the user
+                logger.debug(e.getMessage());
+            }
+        }
+        return counters;
+    }
+}
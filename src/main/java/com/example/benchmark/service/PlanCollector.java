@@ -0,0 +1,88 @@
+package com.example.benchmark.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/* Explains query versions on DB installations. Plans are cached by (installation, SQL hash, setup hash),
+ * so executing an unchanged version again doesn't explain it again. */
+@Component
+public class PlanCollector {
+
+    // estimates change with the data, they are not a part of the plan shape
+    private static final Pattern MYSQL_COST_INFO = Pattern.compile("\"cost_info\"\\s*:\\s*\\{[^}]*}");
+
+    private static final Pattern NUMBER = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Cache<String, Plan> plans;
+
+    @Autowired
+    public PlanCollector(@Value("${benchmark.plan-cache.max-size:10000}") long maxSize, MeterRegistry registry) {
+        plans = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, plans, "plans");
+    }
+
+    /* Explains the SQL on the connection of the run, after its session settings and setup script,
+     * which may create the objects the SQL uses or change the optimizer settings of the session */
+    public Plan explain(long installationId, Connection con, String sql, @Nullable String setup) throws SQLException {
+        String key = installationId + ":" + Hashing.sha256(sql) + (Objects.isNull(setup) ? "" : ":" + Hashing.sha256(setup));
+        Plan plan = plans.getIfPresent(key);
+        if (plan == null) {
+            plan = explain(con, sql);
+            plans.put(key, plan);
+        }
+        return plan;
+    }
+
+    private static Plan explain(Connection con, String sql) throws SQLException {
+        boolean mySql = con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        StringBuilder text = new StringBuilder();
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery((mySql ? "EXPLAIN FORMAT=JSON " : "EXPLAIN ") + sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int col = 1; col <= columns; col++) {
+                    text.append(rs.getString(col)).append(col < columns ? "\t" : "\n");
+                }
+            }
+        }
+        String plan = text.toString();
+        return new Plan(plan, fingerprint(plan));
+    }
+
+    /* Hash of the plan with costs, row estimates and literals dropped, equal for plans of the same shape */
+    static String fingerprint(String plan) {
+        String normalized = MYSQL_COST_INFO.matcher(plan).replaceAll("");
+        normalized = NUMBER.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return Hashing.sha256(normalized);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Plan {
+
+        private String text;
+
+        private String fingerprint;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Query;
+import com.example.benchmark.model.Version;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/* Bounded cache of queries by name and of the latest version of every query.
+ * Entries are detached entities, only their own fields may be used.
+ * Hit/miss statistics are published as cache.* metrics with cache=queries|latestVersions */
+@Component
+public class QueryCache {
+
+    private final Cache<String, Query> queries;
+
+    private final Cache<Long, Version> latestVersions;
+
+    @Autowired
+    public QueryCache(@Value("${benchmark.cache.max-size:10000}") long maxSize,
+                      @Value("${benchmark.cache.expire-after-write:60}") long expireAfterWrite,
+                      MeterRegistry registry) {
+        this(maxSize, expireAfterWrite, registry, ForkJoinPool.commonPool());
+    }
+
+    /* The executor runs the eviction and removal of the entries */
+    QueryCache(long maxSize, long expireAfterWrite, MeterRegistry registry, Executor executor) {
+        queries = Caffeine.newBuilder()
+                .executor(executor)
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        latestVersions = Caffeine.newBuilder()
+                .executor(executor)
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, queries, "queries");
+        CaffeineCacheMetrics.monitor(registry, latestVersions, "latestVersions");
+    }
+
+    /* Missing queries are not cached, the loader is called again next time */
+    public Query getQuery(String name, Function<String, Query> loader) {
+        return queries.get(name, loader);
+    }
+
+    public void putQuery(Query query) {
+        queries.put(query.getName(), query);
+    }
+
+    public Optional<Version> getLatestVersion(Query query, Function<Query, Version> loader) {
+        return Optional.ofNullable(latestVersions.get(query.getId(), id -> loader.apply(query)));
+    }
+
+    public void putLatestVersion(Version version) {
+        latestVersions.put(version.getQuery().getId(), version);
+    }
+
+    public void evict(Query query) {
+        queries.invalidate(query.getName());
+        latestVersions.invalidate(query.getId());
+    }
+
+    public void evictAll() {
+        queries.invalidateAll();
+        latestVersions.invalidateAll();
+    }
+}
@@ -0,0 +1,506 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.BindSource;
+import com.example.benchmark.model.CacheMode;
+import com.example.benchmark.model.ConnectionMode;
+import com.example.benchmark.model.FetchMode;
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.SessionScript;
+import com.example.benchmark.model.Status;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/* Executes a query version against one DB installation and collects the timings */
+@Component
+public class QueryRunner {
+
+    // MySQL Connector/J streams the result set row by row only with this fetch size
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    // the length of the setup and teardown error columns of Run
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    // seconds a run may take if its options have no timeout, 0 is no timeout
+    @Value("${benchmark.run.timeout:0}")
+    private int defaultTimeout;
+
+    // snapshot the server side counters around the measured iterations
+    @Value("${benchmark.counters.enabled:true}")
+    private boolean countersEnabled = true;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final List<CounterCollector> counterCollectors;
+
+    @Autowired
+    private PlanCollector planCollector;
+
+    // aborts the runs which are over their timeout, even if the driver ignores the statement query timeout
+    private final ScheduledExecutorService watchdog =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("run-watchdog-"));
+
+    public QueryRunner() {
+        this(Collections.emptyList());
+    }
+
+    @Autowired
+    public QueryRunner(List<CounterCollector> counterCollectors) {
+        this.counterCollectors = counterCollectors;
+    }
+
+    public void measure(JdbcTemplate jdbcTemplate, String sql, RunOptions options, Run run) {
+        measure(jdbcTemplate, sql, options, run, new RunControl(run, 0));
+    }
+
+    public void measure(JdbcTemplate jdbcTemplate, String sql, RunOptions options, Run run, RunControl control) {
+        measure(jdbcTemplate, sql, null, null, options, run, control);
+    }
+
+    public void measure(JdbcTemplate jdbcTemplate, String sql, @Nullable BindSource bindSource,
+                        @Nullable SessionScript script, RunOptions options, Run run, RunControl control) {
+        String cacheReset = getCacheReset(options, run);
+        int timeout = Objects.isNull(options.getTimeout()) ? defaultTimeout : options.getTimeout();
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        boolean fresh = options.getConnectionMode() == ConnectionMode.FRESH;
+        long acquireStartTime = System.nanoTime();
+        Connection con = fresh ? openConnection(dataSource) : DataSourceUtils.getConnection(dataSource);
+        run.setConnectionAcquireTime(System.nanoTime() - acquireStartTime);
+        // the timeout starts with the connection, a run failing to get one has no timer left behind
+        ScheduledFuture<?> timer = null;
+        ConnectionSettings settings = null;
+        try {
+            if (timeout > 0) {
+                control.setDeadline(System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout));
+                timer = watchdog.schedule(() -> control.abort(Status.TIMED_OUT), timeout, TimeUnit.SECONDS);
+            }
+            settings = new ConnectionSettings(con, options);
+            // all the iterations use the same connection, only statements are timed
+            measure(con, sql, bindSource, script, cacheReset, options, run, control);
+        } catch (SQLException e) {
+            if (timeout > 0 && System.nanoTime() - control.getDeadline() >= 0) {
+                // the query timeout of the statement fired before the watchdog
+                control.abort(Status.TIMED_OUT);
+            }
+            throw jdbcTemplate.getExceptionTranslator().translate("QueryRunner", sql, e);
+        } finally {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            boolean clean = (Objects.isNull(settings) || settings.restore()) && Objects.isNull(run.getTeardownError());
+            if (fresh) {
+                JdbcUtils.closeConnection(con);
+            } else {
+                releaseConnection(con, dataSource, clean);
+            }
+        }
+    }
+
+    /* The cache reset statements of the installation of a COLD run, null for a WARM one */
+    private static String getCacheReset(RunOptions options, Run run) {
+        if (options.getCacheMode() != CacheMode.COLD) {
+            return null;
+        }
+        String cacheReset = Objects.isNull(run.getInstallation()) ? null : run.getInstallation().getCacheReset();
+        if (SqlScripts.split(cacheReset).isEmpty()) {
+            run.setSetupError("A cold run needs the cache reset statements of the DB installation");
+            throw new IllegalStateException(run.getSetupError());
+        }
+        return cacheReset;
+    }
+
+    /* A new physical connection with the settings of the installation pool, it doesn't belong to the pool */
+    private static Connection openConnection(DataSource dataSource) {
+        try {
+            if (dataSource instanceof HikariDataSource) {
+                HikariDataSource pool = (HikariDataSource) dataSource;
+                Properties properties = new Properties();
+                properties.putAll(pool.getDataSourceProperties());
+                if (!Objects.isNull(pool.getUsername())) {
+                    properties.setProperty("user", pool.getUsername());
+                }
+                if (!Objects.isNull(pool.getPassword())) {
+                    properties.setProperty("password", pool.getPassword());
+                }
+                return DriverManager.getConnection(pool.getJdbcUrl(), properties);
+            }
+            // other data sources don't pool their connections
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new CannotGetJdbcConnectionException("Could not open a fresh JDBC Connection", e);
+        }
+    }
+
+    static void releaseConnection(Connection con, DataSource dataSource, boolean clean) {
+        if (!clean && dataSource instanceof HikariDataSource) {
+            // the session state left by a failed teardown must not leak into the next runs
+            ((HikariDataSource) dataSource).evictConnection(con);
+        } else {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    /* Setup, the iterations and teardown on the same connection, only the iterations are timed */
+    private void measure(Connection con, String sql, @Nullable BindSource bindSource, @Nullable SessionScript script,
+                         @Nullable String cacheReset, RunOptions options, Run run, RunControl control) throws SQLException {
+        if (Objects.isNull(script)) {
+            explain(con, sql, null, options, run, control);
+            measure(con, sql, bindSource, cacheReset, options, run, control);
+            return;
+        }
+        try {
+            long setupStartTime = System.nanoTime();
+            try {
+                executeScript(con, script.getSetup(), control);
+            } catch (SQLException e) {
+                run.setSetupError(errorMessage(e));
+                throw e;
+            }
+            run.setSetupTime(System.nanoTime() - setupStartTime);
+            explain(con, sql, script.getSetup(), options, run, control);
+            measure(con, sql, bindSource, cacheReset, options, run, control);
+        } finally {
+            // a failed, timed out or cancelled run is cleaned up as well, its error is kept
+            long teardownStartTime = System.nanoTime();
+            run.setTeardownError(teardown(con, script.getTeardown()));
+            run.setTeardownTime(System.nanoTime() - teardownStartTime);
+        }
+    }
+
+    /* The plan is explained on the connection of the run with its isolation and after its setup, so it is the plan
+     * of the measured statement. Not every statement can be explained, the run is measured anyway */
+    private void explain(Connection con, String sql, @Nullable String setup, RunOptions options, Run run,
+                         RunControl control) {
+        if (!Boolean.TRUE.equals(options.getExplain())) {
+            return;
+        }
+        try {
+            PlanCollector.Plan plan = planCollector.explain(control.getInstallationId(), con, sql, setup);
+            run.setPlan(plan.getText());
+            run.setPlanFingerprint(plan.getFingerprint());
+        } catch (SQLException e) {
+            logger.warn(String.format("Run %d of DB installation %d can't be explained: %s",
+                    run.getId(), control.getInstallationId(), e.getMessage()));
+        }
+    }
+
+    /* The setup statements share the timeout of the run and can be cancelled with it, their results aren't read */
+    void executeScript(Connection con, @Nullable String script, @Nullable RunControl control) throws SQLException {
+        for (String statement : SqlScripts.split(script)) {
+            try (Statement stmt = con.createStatement()) {
+                execute(stmt, () -> stmt.execute(statement), new RunOptions(), control);
+            }
+        }
+    }
+
+    /* Every statement of the teardown is tried without the run control, returns the first error or null */
+    String teardown(Connection con, @Nullable String script) {
+        String error = null;
+        for (String statement : SqlScripts.split(script)) {
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute(statement);
+            } catch (SQLException e) {
+                error = Objects.isNull(error) ? errorMessage(e) : error;
+            }
+        }
+        return error;
+    }
+
+    static String errorMessage(SQLException e) {
+        String message = String.valueOf(e.getMessage());
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private void measure(Connection con, String sql, @Nullable BindSource bindSource, @Nullable String cacheReset,
+                         RunOptions options, Run run, RunControl control) throws SQLException {
+        Preparation reset = Objects.isNull(cacheReset) ? null : () -> {
+            try {
+                executeScript(con, cacheReset, control);
+            } catch (SQLException e) {
+                run.setSetupError("Cache reset failed: " + errorMessage(e));
+                throw e;
+            }
+        };
+        RunCounters counters = getCounters(con);
+        if (Objects.isNull(bindSource)) {
+            measure(i -> iterate(con, sql, options, control), reset, counters, options, run);
+            return;
+        }
+        List<List<Object>> bindSets = BindSets.load(con, bindSource);
+        run.setBindSetCount(bindSets.size());
+        // one statement for all the iterations, so the SQL is parsed once and the driver/server statement caches are hit
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            measure(i -> iterate(ps, bindSets.get(i % bindSets.size()), options, control), reset, counters, options, run);
+        }
+    }
+
+    /* Warmup iterations and then the measured ones, iteration i of both gets bind set i % bindSetCount.
+     * The caches of a cold run are reset before every iteration, outside of the measured time.
+     * The counters are read around all measured iterations, or around each of them if the resets are in between */
+    private void measure(Iteration iteration, @Nullable Preparation reset, @Nullable RunCounters counters,
+                         RunOptions options, Run run) throws SQLException {
+        boolean countEach = !Objects.isNull(counters) && !Objects.isNull(reset);
+        boolean countAll = !Objects.isNull(counters) && Objects.isNull(reset);
+        for (int i = 0; i < options.getWarmupIterations(); i++) {
+            prepare(reset);
+            iteration.execute(i);
+        }
+        List<Long> samples = new ArrayList<>(options.getIterations());
+        long firstRowTime = 0;
+        long fetchTime = 0;
+        FetchResult result = null;
+        if (countAll) {
+            counters.before();
+        }
+        for (int i = 0; i < options.getIterations(); i++) {
+            prepare(reset);
+            if (countEach) {
+                counters.before();
+            }
+            long startTime = System.nanoTime();
+            result = iteration.execute(i);
+            samples.add(System.nanoTime() - startTime);
+            if (countEach) {
+                counters.after();
+            }
+            if (result != null) {
+                firstRowTime += result.firstRowTime;
+                fetchTime += result.fetchTime;
+            }
+        }
+        if (countAll) {
+            counters.after();
+        }
+
+        run.setSamples(samples);
+        if (!Objects.isNull(counters)) {
+            run.setCounters(counters.getDeltas());
+        }
+        run.setStats(Statistics.latencyStats(samples));
+        run.setWorkTime(TimeUnit.NANOSECONDS.toMillis(run.getStats().getMeanTime()));
+        if (result != null) {
+            run.setFirstRowTime(firstRowTime / samples.size());
+            run.setFetchTime(fetchTime / samples.size());
+            run.setRowCount(result.rowCount);
+            run.setBytesRead(result.bytesRead);
+        }
+    }
+
+    /* The counters of the DB of the connection, null if they are off or no collector knows the DB */
+    private RunCounters getCounters(Connection con) throws SQLException {
+        if (!countersEnabled) {
+            return null;
+        }
+        String databaseProductName = con.getMetaData().getDatabaseProductName();
+        return counterCollectors.stream()
+                .filter(collector -> collector.supports(databaseProductName))
+                .findFirst()
+                .map(collector -> new RunCounters(collector, con))
+                .orElse(null);
+    }
+
+    private static void prepare(@Nullable Preparation preparation) throws SQLException {
+        if (!Objects.isNull(preparation)) {
+            preparation.execute();
+        }
+    }
+
+    FetchResult iterate(Connection con, String sql, RunOptions options) throws SQLException {
+        return iterate(con, sql, options, null);
+    }
+
+    FetchResult iterate(Connection con, String sql, RunOptions options, @Nullable RunControl control) throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            return execute(stmt, () -> stmt.execute(sql), options, control);
+        }
+    }
+
+    FetchResult iterate(PreparedStatement ps, List<Object> bindSet, RunOptions options) throws SQLException {
+        return iterate(ps, bindSet, options, null);
+    }
+
+    FetchResult iterate(PreparedStatement ps, List<Object> bindSet, RunOptions options,
+                        @Nullable RunControl control) throws SQLException {
+        BindSets.bind(ps, bindSet);
+        return execute(ps, ps::execute, options, control);
+    }
+
+    private FetchResult execute(Statement stmt, Execution execution, RunOptions options,
+                                @Nullable RunControl control) throws SQLException {
+        if (Objects.isNull(control)) {
+            return execute(stmt, execution, options);
+        }
+        if (control.getDeadline() != 0) {
+            stmt.setQueryTimeout(control.remainingSeconds());
+        }
+        control.attach(stmt);
+        try {
+            return execute(stmt, execution, options);
+        } finally {
+            control.detach(stmt);
+        }
+    }
+
+    private FetchResult execute(Statement stmt, Execution execution, RunOptions options) throws SQLException {
+        if (options.getFetchMode() == null || options.getFetchMode() == FetchMode.EXECUTE) {
+            execution.execute();
+            return null;
+        }
+        return fetch(stmt, execution, options);
+    }
+
+    private FetchResult fetch(Statement stmt, Execution execution, RunOptions options) throws SQLException {
+        Integer fetchSize = options.getFetchSize();
+        if (options.getFetchMode() == FetchMode.STREAM && isMySql(stmt.getConnection().getMetaData())) {
+            fetchSize = MYSQL_STREAMING_FETCH_SIZE;
+        }
+        if (fetchSize != null) {
+            stmt.setFetchSize(fetchSize);
+        }
+
+        FetchResult result = new FetchResult();
+        long startTime = System.nanoTime();
+        if (!execution.execute()) {
+            result.firstRowTime = System.nanoTime() - startTime;
+            return result;
+        }
+        try (ResultSet rs = stmt.getResultSet()) {
+            int columns = rs.getMetaData().getColumnCount();
+            // rows are read and dropped right away, only their approximate size is kept
+            while (rs.next()) {
+                if (result.rowCount == 0) {
+                    result.firstRowTime = System.nanoTime() - startTime;
+                }
+                result.rowCount++;
+                for (int col = 1; col <= columns; col++) {
+                    result.bytesRead += approximateSize(rs.getObject(col));
+                }
+            }
+        }
+        long totalTime = System.nanoTime() - startTime;
+        if (result.rowCount == 0) {
+            result.firstRowTime = totalTime;
+        }
+        result.fetchTime = totalTime - result.firstRowTime;
+        return result;
+    }
+
+    private boolean isMySql(DatabaseMetaData metaData) throws SQLException {
+        return metaData.getDatabaseProductName().toLowerCase().contains("mysql");
+    }
+
+    private long approximateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        }
+        if (value instanceof Number || value instanceof java.util.Date || value instanceof Boolean) {
+            return Long.BYTES;
+        }
+        return value.toString().length();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Iteration {
+        FetchResult execute(int i) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Preparation {
+        void execute() throws SQLException;
+    }
+
+    /* Statement.execute(sql) or PreparedStatement.execute() */
+    @FunctionalInterface
+    private interface Execution {
+        boolean execute() throws SQLException;
+    }
+
+    /* The isolation, read-only and autocommit settings of a run, the previous ones are restored after it */
+    private static class ConnectionSettings {
+        private final Connection con;
+        private final RunOptions options;
+        private final boolean autoCommit;
+        private final boolean readOnly;
+        private final int isolation;
+
+        private ConnectionSettings(Connection con, RunOptions options) throws SQLException {
+            this.con = con;
+            this.options = options;
+            this.autoCommit = con.getAutoCommit();
+            this.readOnly = con.isReadOnly();
+            this.isolation = con.getTransactionIsolation();
+            if (!Objects.isNull(options.getIsolation())) {
+                con.setTransactionIsolation(options.getIsolation().getJdbcLevel());
+            }
+            if (!Objects.isNull(options.getReadOnly())) {
+                con.setReadOnly(options.getReadOnly());
+            }
+            if (!Objects.isNull(options.getAutoCommit())) {
+                con.setAutoCommit(options.getAutoCommit());
+            }
+        }
+
+        // false if the connection is left in an unknown state
+        private boolean restore() {
+            try {
+                if (Boolean.FALSE.equals(options.getAutoCommit())) {
+                    // the changes of the iterations are dropped, the next run finds the same data
+                    con.rollback();
+                }
+                con.setAutoCommit(autoCommit);
+                con.setReadOnly(readOnly);
+                con.setTransactionIsolation(isolation);
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    static class FetchResult {
+        private long firstRowTime;
+        private long fetchTime;
+        private long rowCount;
+        private long bytesRead;
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.benchmark.service;
 
+import com.example.benchmark.model.BindSource;
+import com.example.benchmark.model.LoadTestOptions;
 import com.example.benchmark.model.Version;
 import com.example.benchmark.model.Query;
 import com.example.benchmark.model.Run;
-import com.example.benchmark.model.Version;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.SessionScript;
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Suite;
 import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
 
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface QueryService {
 
@@ -19,9 +26,33 @@ public interface QueryService {
 
     List<Version> getQueryVersions(Query query, Pageable pageable);
 
+    List<Version> findVersions(Query query, @Nullable Status status, Pageable pageable);
+
     Query createOrUpdateQuery(String name, String txt);
 
-    void executeQuery(Query query);
+    Query createOrUpdateQuery(String name, String txt, RunOptions options);
+
+    /* The SQL has placeholders bound from the bind source, if it isn't null.
+     * The statements of the script are executed around it on the same connection, only the SQL is timed */
+    Query createOrUpdateQuery(String name, String txt, @Nullable BindSource bindSource, @Nullable SessionScript script,
+                              RunOptions options);
+
+    /* Creates the query if there is no such one and measures the SQL as its new version,
+     * returns the new version or the fresh identical one which is reused */
+    Version submitQuery(String name, String txt, @Nullable BindSource bindSource, @Nullable SessionScript script,
+                        RunOptions options);
+
+    /* Measures the latest version of the query again, returns the new version or null if the query has no versions */
+    Version executeQuery(Query query);
+
+    Version executeQuery(Query query, RunOptions options);
+
+    /* Creates the missing queries and measures new versions of all of them, their runs are queued in one go */
+    Suite submitSuite(@Nullable String name, List<SuiteQuery> queries);
+
+    Suite getSuite(Long id);
+
+    void loadTestQuery(Query query, RunOptions options, LoadTestOptions load);
 
     void deleteQuery(Long id);
 
@@ -30,4 +61,17 @@ public interface QueryService {
     Version getVersion(Long id);
 
     Run getRun(Long id);
+
+    /* Marks the runs left executing by the previous process as interrupted
+     * and puts the scheduled ones to the installation queues again */
+    void recoverRuns();
+
+    /* Cancels the scheduled and executing runs of the version, returns the number of the cancelled runs */
+    int cancelVersion(Long versionId);
+
+    /* Sends the state of every run of the version to the listener, then their transitions till all of them are finished.
+     * Returns null if there is no such version */
+    VersionProgress followVersion(Long versionId, Consumer<RunEvent> listener);
+
+    VersionComparison compareVersions(Long versionId, @Nullable Long baselineId, @Nullable Double threshold);
 }
\ No newline at end of file
@@ -1,39 +1,54 @@
 package com.example.benchmark.service;
 
-import com.example.benchmark.config.PropConfig;
 import com.example.benchmark.dao.VersionRepository;
 import com.example.benchmark.dao.QueryRepository;
 import com.example.benchmark.dao.RunRepository;
+import com.example.benchmark.dao.SuiteRepository;
+import com.example.benchmark.model.BindSource;
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.LoadTestOptions;
 import com.example.benchmark.model.Version;
 import com.example.benchmark.model.Query;
 import com.example.benchmark.model.Run;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.RunSummary;
+import com.example.benchmark.model.SessionScript;
 import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Suite;
 import org.apache.logging.log4j.util.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import javax.sql.DataSource;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.IntStream;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.toList;
 
 @Service
 public class QueryServiceImpl implements QueryService {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    // versions which are reused on createOrUpdate, the failed, timed out, cancelled and interrupted ones are measured again
+    private static final Set<Status> REUSABLE = EnumSet.of(Status.SCHEDULED, Status.EXECUTING, Status.DONE);
+
     @Autowired
     private QueryRepository queryRepository;
 
@@ -44,27 +59,60 @@ public class QueryServiceImpl implements QueryService {
     private RunRepository runRepository;
 
     @Autowired
-    private PropConfig props;
+    private SuiteRepository suiteRepository;
 
-    private final List<ExecutorService> executors;
+    @Autowired
+    private QueryRunner queryRunner;
 
-    private final List<JdbcTemplate> sources;
+    @Autowired
+    private RunScheduler scheduler;
 
-    private final Lock reqOrderLock = new ReentrantLock();
-    private final Lock createOrUpdateLock = new ReentrantLock();
+    @Autowired
+    private LoadTestDriver loadTestDriver;
+
+    @Autowired
+    private RunJournal runJournal;
+
+    @Autowired
+    private SubmissionSequencer sequencer;
+
+    @Autowired
+    private QueryCache queryCache;
+
+    @Autowired
+    private VersionComparator versionComparator;
+
+    @Autowired
+    private RunControls runControls;
+
+    @Autowired
+    private RunMetrics runMetrics;
 
     @Autowired
-    public QueryServiceImpl(@Qualifier("sources") List<JdbcTemplate> sources) {
-        this.sources = sources;
-        int N_SOURCES = sources.size();
-        executors = new ArrayList<>(N_SOURCES);
-        IntStream.range(0, N_SOURCES)
-                .forEach(idx -> {
-                            // single Thread Executor per DB, 
-                            // only one thread is active at any point of time against a DB
-                            executors.add(Executors.newSingleThreadExecutor());
-                        }
-                );
+    private InstallationHealth installationHealth;
+
+    @Autowired
+    private InstallationRegistry installationRegistry;
+
+    @Autowired
+    private RunEvents runEvents;
+
+    // minutes an unchanged version stays fresh and isn't executed again on createOrUpdate, 0 executes every time
+    @Value("${benchmark.dedupe.fresh-for:60}")
+    private long freshFor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Lock createOrUpdateLock = new ReentrantLock();
+
+    // the reads waiting for the run journal open their transactions after it
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
     }
 
     @Override
@@ -82,17 +130,56 @@ public class QueryServiceImpl implements QueryService {
     @Override
     public Query findQuery(String queryName) {
         logger.info("getQuery by name called");
-        return queryRepository.findByName(queryName).orElse(null);
+        return queryCache.getQuery(queryName, name -> queryRepository.findByName(name).orElse(null));
     }
 
     @Override
     public List<Version> getQueryVersions(Query query, Pageable pageable) {
-        return versionRepository.findByQueryOrderByCreatedDesc(query, pageable);
+        // waits for the journal before the transaction takes a connection of the pool the journal writes with
+        runJournal.awaitFlush();
+        return readOnlyTransaction.execute(status -> {
+            List<Version> versions = versionRepository.findByQueryOrderByCreatedDesc(query, pageable);
+            if (!versions.isEmpty()) {
+                // initializes the runs of the page in the same persistence context
+                versionRepository.fetchRuns(versions.stream().map(Version::getId).collect(toList()));
+            }
+            return versions;
+        });
+    }
+
+    @Override
+    public List<Version> findVersions(Query query, @Nullable Status status, Pageable pageable) {
+        runJournal.awaitFlush();
+        if (pageable.getSort().isUnsorted()) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "created"));
+        }
+        // the status and the work times are stored on the version, the runs aren't read
+        if (Objects.isNull(status)) {
+            return versionRepository.findByQuery(query, pageable);
+        }
+        return versionRepository.findByQueryAndSummaryStatus(query, status, pageable);
     }
 
     @Override
     public Query createOrUpdateQuery(String name, String txt) {
+        return createOrUpdateQuery(name, txt, new RunOptions());
+    }
+
+    @Override
+    public Query createOrUpdateQuery(String name, String txt, RunOptions options) {
+        return createOrUpdateQuery(name, txt, null, null, options);
+    }
+
+    @Override
+    public Query createOrUpdateQuery(String name, String txt, @Nullable BindSource bindSource,
+                                     @Nullable SessionScript script, RunOptions options) {
         logger.info("createOrUpdateQuery called");
+        return submitQuery(name, txt, bindSource, script, options).getQuery();
+    }
+
+    @Override
+    public Version submitQuery(String name, String txt, @Nullable BindSource bindSource,
+                               @Nullable SessionScript script, RunOptions options) {
         Query query = null;
         // make the operation atomic to prevent multiple creation of the same query
         createOrUpdateLock.lock();
@@ -100,79 +187,386 @@ public class QueryServiceImpl implements QueryService {
             query = findQuery(name);
             if (Objects.isNull(query)) {
                 query = queryRepository.save(new Query(null, name));
+                queryCache.putQuery(query);
             }
         } finally {
             createOrUpdateLock.unlock();
         }
-        measureQuery(query, txt);
-        return query;
+        Optional<Version> fresh = findFreshVersion(query, txt, bindSource, script, options);
+        if (fresh.isPresent()) {
+            logger.info(String.format("----- Query name: %s, version id: %d is the same and fresh, not executed again -----",
+                    query.getName(), fresh.get().getId()));
+            return fresh.get();
+        }
+        return measureQuery(query, txt, bindSource, script, options);
+    }
+
+    /* The latest version of the query if it has the same SQL, bind sets, script and options, was created within
+     * the freshness window and is done or still going to be, so there is no need to occupy the installations with it again */
+    private Optional<Version> findFreshVersion(Query query, String txt, @Nullable BindSource bindSource,
+                                               @Nullable SessionScript script, RunOptions options) {
+        if (freshFor <= 0) {
+            return Optional.empty();
+        }
+        String sqlHash = Hashing.sqlHash(txt);
+        LocalDateTime freshAfter = LocalDateTime.now().minusMinutes(freshFor);
+        return getLatestVersion(query)
+                .filter(v -> sqlHash.equals(v.getSqlHash()) && options.equals(v.getOptions()) && Objects.isNull(v.getLoadTest()))
+                .filter(v -> Objects.equals(bindSource, v.getBindSource()) && Objects.equals(script, v.getScript()))
+                .filter(v -> v.getCreated().isAfter(freshAfter))
+                .filter(v -> {
+                    // the cached version has the summary of the moment it was created
+                    runJournal.awaitFlush();
+                    return versionRepository.findById(v.getId())
+                            .map(Version::getSummary)
+                            .map(summary -> REUSABLE.contains(summary.getStatus()))
+                            .orElse(false);
+                });
+    }
+
+    @Override
+    public Version executeQuery(Query query) {
+        return executeQuery(query, new RunOptions());
     }
 
     @Override
-    public void executeQuery(Query query) {
+    public Version executeQuery(Query query, RunOptions options) {
         logger.info("executeQuery called");
-        List<Version> versions = versionRepository.findByQueryOrderByCreatedDesc(query, PageRequest.of(0, 1));
-        if (!versions.isEmpty()) {
-            measureQuery(query, versions.get(0).getTxt());
+        return getLatestVersion(query)
+                .map(latest -> measureQuery(query, latest.getTxt(), latest.getBindSource(), latest.getScript(), options))
+                .orElse(null);
+    }
+
+    @Override
+    public void loadTestQuery(Query query, RunOptions options, LoadTestOptions load) {
+        logger.info("loadTestQuery called");
+        Optional<Version> latest = getLatestVersion(query);
+        if (!latest.isPresent()) {
+            return;
+        }
+        final String sql = latest.get().getTxt();
+        List<Installation> installations = installationRegistry.getActive();
+        final Version version = versionRepository
+                .save(new Version(null, sql, Hashing.sqlHash(sql), LocalDateTime.now(), query, Collections.emptyList(), options,
+                        latest.get().getBindSource(), latest.get().getScript(), load, RunSummary.scheduled(installations.size()), null));
+        queryCache.putLatestVersion(version);
+
+        // load tests don't go through the installation queues, they hold them while they are driven
+        installations.forEach(installation -> {
+            final Run run = runRepository.save(new Run(installation, Status.SCHEDULED, version));
+            long idx = installation.getId();
+            // cancelled with the version or the installation like the isolated runs
+            RunControl control = runControls.register(new RunControl(run, idx));
+            loadTestDriver.submit(idx, () -> executeLoadTest(version, control, sql, options, load));
+        });
+    }
+
+    private void executeLoadTest(Version version, RunControl control, String sql, RunOptions options, LoadTestOptions load) {
+        long idx = control.getInstallationId();
+        // the load test waits for the executing runs of the installation, the next ones wait for the load test
+        boolean acquired = scheduler.acquire(idx, true, control);
+        try {
+            executeLoadTest(version, control.getRun(), control, idx, sql, options, load);
+        } finally {
+            if (acquired) {
+                scheduler.release(idx, true);
+            }
+            runControls.remove(control);
+        }
+    }
+
+    private void executeLoadTest(Version version, Run run, RunControl control, long idx, String sql, RunOptions options,
+                                 LoadTestOptions load) {
+        if (control.isAborted()) {
+            logger.info(String.format("----- Query name: %s, version id: %d, load test %d %s -----",
+                    version.getQuery().getName(), version.getId(), idx, control.getAbortStatus()));
+            transition(run, control.getAbortStatus());
+            runMetrics.recordFailure(idx, control.getAbortStatus());
+            return;
+        }
+        JdbcTemplate jdbcTemplate = installationRegistry.getJdbcTemplate(idx);
+        if (Objects.isNull(jdbcTemplate)) {
+            failRemoved(version, run, idx);
+            return;
+        }
+        logger.info(String.format("----- Query name: %s, version id: %d, load test %d with %d clients %s -----",
+                version.getQuery().getName(), version.getId(), idx, load.getClients(), Status.EXECUTING));
+        transition(run, Status.EXECUTING);
+
+        try {
+            loadTestDriver.drive(jdbcTemplate, sql, version.getBindSource(), version.getScript(), options, load, run,
+                    control);
+        } catch (Exception e) {
+            Status status = control.isAborted() ? control.getAbortStatus() : Status.FAILED;
+            if (status == Status.FAILED) {
+                logger.error(String.format("Load test %d of version %d has failed", idx, version.getId()), e);
+            }
+            logger.info(String.format("----- Query name: %s, version id: %d, load test %d %s -----",
+                    version.getQuery().getName(), version.getId(), idx, status));
+            transition(run, status);
+            runMetrics.recordFailure(idx, status);
+            return;
         }
+
+        logger.info(String.format("----- Query name: %s, version id: %d, load test %d, throughput: %.1f/s, errors: %d %s -----",
+                version.getQuery().getName(), version.getId(), idx, run.getThroughput(), run.getErrors(), Status.DONE));
+        transition(run, Status.DONE);
+    }
+
+    private Optional<Version> getLatestVersion(Query query) {
+        return queryCache.getLatestVersion(query, q -> versionRepository
+                .findByQueryOrderByCreatedDesc(q, PageRequest.of(0, 1)).stream().findFirst().orElse(null));
     }
 
-    public void measureQuery(Query query, final String sql) {
-        logger.info(sources.toString());
+    public Version measureQuery(Query query, final String sql, @Nullable BindSource bindSource,
+                                @Nullable SessionScript script, final RunOptions options) {
         logger.info("sql = [" + sql + "]");
 
-        // lock to form correct order to executors - parallel requests don't mix up
-        reqOrderLock.lock();
+        // the ticket fixes the place of the query in the executors' queues - parallel requests don't mix up
+        long ticket = sequencer.ticket();
+        final Version version;
+        final List<Run> runs;
         try {
+            // the installations added later don't get the version, the draining ones don't get it any more
+            List<Installation> installations = installationRegistry.getActive();
+            version = runMetrics.recordPersistence("version", () -> versionRepository.save(new Version(null, sql,
+                    Hashing.sqlHash(sql), LocalDateTime.now(), query, Collections.emptyList(), options, bindSource, script, null,
+                    RunSummary.scheduled(installations.size()), null)));
+            queryCache.putLatestVersion(version);
+            runs = runMetrics.recordPersistence("runs", () -> runRepository.saveAll(installations.stream()
+                    .map(installation -> new Run(installation, Status.SCHEDULED, version))
+                    .collect(toList())));
+        } catch (RuntimeException e) {
+            sequencer.skip(ticket);
+            throw e;
+        }
 
-            final Version version = versionRepository
-                    .save(new Version(null, sql, LocalDateTime.now(), query, Collections.emptyList()));
-
-            IntStream.range(0, sources.size()).forEach(idx -> {
-
-                final Run run = runRepository.save(new Run(null, getDbUrl(idx), Status.SCHEDULED, 0L, version));
-
-                executors.get(idx).execute(() -> {
-
-                    logger.info(String.format("----- Query name: %s, version id: %d, run %d %s -----",
-                            version.getQuery().getName(), version.getId(), idx, Status.EXECUTING));
-                    run.setStatus(Status.EXECUTING);
-                    runRepository.save(run);
-
-                    JdbcTemplate jdbcTemplate = sources.get(idx);
-
-                    long startTime = System.currentTimeMillis();
-                    try {
-                        jdbcTemplate.execute(sql);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        logger.info(String.format("----- Query name: %s, version id: %d, run %d %s -----",
-                                version.getQuery().getName(), version.getId(), idx, Status.FAILED));
-                        run.setStatus(Status.FAILED);
-                        runRepository.save(run);
-                        return;
-                    }
-
-                    long stopTime = System.currentTimeMillis();
-                    long elapsedTime = stopTime - startTime;
-                    logger.info(String.format("----- Query name: %s, version id: %d, run %d, work time: %d ms %s -----",
-                            version.getQuery().getName(), version.getId(), idx, elapsedTime, Status.DONE));
-                    run.setStatus(Status.DONE);
-                    run.setWorkTime(elapsedTime);
-                    runRepository.save(run);
-                });
+        // the runs can be cancelled from now on, even before they get into the queues
+        List<RunControl> controls = runs.stream()
+                .map(run -> runControls.register(new RunControl(run, run.getInstallation().getId())))
+                .collect(toList());
+
+        sequencer.dispatch(ticket, () -> controls.forEach(control -> submit(version, control, sql, options)));
+        return version;
+    }
+
+    @Override
+    public Suite submitSuite(@Nullable String name, List<SuiteQuery> suiteQueries) {
+        logger.info(String.format("submitSuite called with %d queries", suiteQueries.size()));
+
+        // one ticket for the whole suite, its runs go to the queues together in the order of the queries
+        long ticket = sequencer.ticket();
+        final Suite suite;
+        final List<Run> runs;
+        try {
+            Map<String, Query> queries = findOrCreateQueries(suiteQueries.stream().map(SuiteQuery::getName).collect(toList()));
+            List<Installation> installations = installationRegistry.getActive();
+            suite = runMetrics.recordPersistence("suite", () ->
+                    suiteRepository.save(new Suite(null, name, LocalDateTime.now(), null)));
+            // the versions and then the runs are inserted in JDBC batches
+            List<Version> versions = runMetrics.recordPersistence("versions", () -> versionRepository.saveAll(
+                    suiteQueries.stream()
+                            .map(q -> new Version(null, q.getTxt(), Hashing.sqlHash(q.getTxt()), LocalDateTime.now(),
+                                    queries.get(q.getName()), Collections.emptyList(), q.getOptions(), q.getBindSource(), q.getScript(), null,
+                                    RunSummary.scheduled(installations.size()), suite))
+                            .collect(toList())));
+            suite.setVersions(versions);
+            versions.forEach(queryCache::putLatestVersion);
+            runs = runMetrics.recordPersistence("runs", () -> runRepository.saveAll(versions.stream()
+                    .flatMap(version -> installations.stream().map(installation -> new Run(installation, Status.SCHEDULED, version)))
+                    .collect(toList())));
+        } catch (RuntimeException e) {
+            sequencer.skip(ticket);
+            throw e;
+        }
+
+        List<RunControl> controls = runs.stream()
+                .map(run -> runControls.register(new RunControl(run, run.getInstallation().getId())))
+                .collect(toList());
+        sequencer.dispatch(ticket, () -> controls.forEach(control -> {
+            Version version = control.getRun().getVersion();
+            submit(version, control, version.getTxt(), version.getOptions());
+        }));
+        return suite;
+    }
+
+    /* The queries by name, the missing ones are created in one batch */
+    private Map<String, Query> findOrCreateQueries(List<String> names) {
+        createOrUpdateLock.lock();
+        try {
+            Map<String, Query> queries = new HashMap<>();
+            queryRepository.findByNameIn(names).forEach(query -> queries.putIfAbsent(query.getName(), query));
+            List<Query> created = queryRepository.saveAll(names.stream()
+                    .distinct()
+                    .filter(name -> !queries.containsKey(name))
+                    .map(name -> new Query(null, name))
+                    .collect(toList()));
+            created.forEach(query -> {
+                queries.put(query.getName(), query);
+                queryCache.putQuery(query);
             });
+            return queries;
         } finally {
-            reqOrderLock.unlock();
+            createOrUpdateLock.unlock();
         }
     }
 
-    private String getDbUrl(int idx) {
-        String dbUrl = String.format("DB installation %d", idx);
-        if (!Objects.isNull(props.getUrl())) {
-            dbUrl = props.getUrl().get(idx);
+    @Override
+    public Suite getSuite(Long id) {
+        logger.info("getSuite called");
+        runJournal.awaitFlush();
+        return suiteRepository.findWithVersionsById(id).orElse(null);
+    }
+
+    private void submit(Version version, RunControl control, String sql, RunOptions options) {
+        long idx = control.getInstallationId();
+        control.setTask(() -> executeRun(version, control, sql, options));
+        try {
+            scheduler.submit(idx, control.getTask());
+        } catch (RejectedExecutionException e) {
+            logger.warn(String.format("----- Query name: %s, version id: %d, run %d is rejected: %s (queue depth %d) -----",
+                    version.getQuery().getName(), version.getId(), idx, e.getMessage(), scheduler.getQueueDepth(idx)));
+            runControls.remove(control);
+            transition(control.getRun(), Status.FAILED);
+            runMetrics.recordFailure(idx, Status.FAILED);
         }
-        return dbUrl;
+    }
+
+    @Override
+    public void recoverRuns() {
+        // nothing is executing right after the start, such runs were stopped together with the previous process
+        List<Run> interrupted = runRepository.findByStatusOrderById(Status.EXECUTING);
+        interrupted.forEach(run -> {
+            transition(run, Status.INTERRUPTED);
+            runMetrics.recordFailure(run.getInstallation().getId(), Status.INTERRUPTED);
+        });
+
+        List<Run> scheduled = runRepository.findByStatusOrderById(Status.SCHEDULED);
+        if (interrupted.isEmpty() && scheduled.isEmpty()) {
+            return;
+        }
+        logger.info(String.format("Recovering runs: %d interrupted, %d scheduled", interrupted.size(), scheduled.size()));
+
+        List<RunControl> controls = new ArrayList<>(scheduled.size());
+        scheduled.forEach(run -> {
+            long idx = run.getInstallation().getId();
+            if (!installationRegistry.isLive(idx)) {
+                logger.warn(String.format("Run %d is dropped, DB installation %d %s is removed",
+                        run.getId(), idx, Installation.maskPassword(run.getInstallation().getJdbcUrl())));
+                transition(run, Status.FAILED);
+                return;
+            }
+            controls.add(runControls.register(new RunControl(run, idx)));
+        });
+
+        // the recovered runs go to the queues in their original order, before the new requests
+        long ticket = sequencer.ticket();
+        sequencer.dispatch(ticket, () -> controls.forEach(control -> {
+            Version version = control.getRun().getVersion();
+            RunOptions options = Objects.isNull(version.getOptions()) ? new RunOptions() : version.getOptions();
+            if (Objects.isNull(version.getLoadTest())) {
+                submit(version, control, version.getTxt(), options);
+            } else {
+                loadTestDriver.submit(control.getInstallationId(), () -> executeLoadTest(version, control,
+                        version.getTxt(), options, version.getLoadTest()));
+            }
+        }));
+    }
+
+    /* Every status change of a run is stored by the journal and sent to the clients following the version */
+    private void transition(Run run, Status status) {
+        run.setStatus(status);
+        runJournal.record(run);
+        runEvents.publish(run);
+    }
+
+    private void executeRun(Version version, RunControl control, String sql, RunOptions options) {
+        long idx = control.getInstallationId();
+        // the runs of an unreachable installation wait for it here, keeping their order
+        installationHealth.awaitAvailable(idx, control);
+        // as well as the runs of an installation held by a load test
+        boolean acquired = scheduler.acquire(idx, false, control);
+        try {
+            executeRun(version, control.getRun(), control, idx, sql, options);
+        } finally {
+            if (acquired) {
+                scheduler.release(idx, false);
+            }
+            runControls.remove(control);
+        }
+    }
+
+    private void executeRun(Version version, Run run, RunControl control, long idx, String sql, RunOptions options) {
+        if (control.isAborted()) {
+            logger.info(String.format("----- Query name: %s, version id: %d, run %d %s -----",
+                    version.getQuery().getName(), version.getId(), idx, control.getAbortStatus()));
+            transition(run, control.getAbortStatus());
+            runMetrics.recordFailure(idx, control.getAbortStatus());
+            return;
+        }
+        JdbcTemplate jdbcTemplate = installationRegistry.getJdbcTemplate(idx);
+        if (Objects.isNull(jdbcTemplate)) {
+            failRemoved(version, run, idx);
+            return;
+        }
+        runMetrics.recordWait(idx, System.nanoTime() - control.getScheduledTime());
+        logger.info(String.format("----- Query name: %s, version id: %d, run %d %s -----",
+                version.getQuery().getName(), version.getId(), idx, Status.EXECUTING));
+        transition(run, Status.EXECUTING);
+
+        long startTime = System.nanoTime();
+        try {
+            queryRunner.measure(jdbcTemplate, sql, version.getBindSource(), version.getScript(), options, run, control);
+            runMetrics.recordExecution(idx, System.nanoTime() - startTime);
+            installationHealth.recordSuccess(idx);
+        } catch (Exception e) {
+            runMetrics.recordExecution(idx, System.nanoTime() - startTime);
+            if (InstallationHealth.isConnectionFailure(e)) {
+                installationHealth.recordFailure(idx);
+            }
+            // a statement cancelled by the watchdog or by a user fails as well
+            Status status = control.isAborted() ? control.getAbortStatus() : Status.FAILED;
+            if (status == Status.FAILED) {
+                logger.error(String.format("Run %d of version %d has failed", idx, version.getId()), e);
+            }
+            logger.info(String.format("----- Query name: %s, version id: %d, run %d %s -----",
+                    version.getQuery().getName(), version.getId(), idx, status));
+            transition(run, status);
+            runMetrics.recordFailure(idx, status);
+            return;
+        }
+
+        if (!Objects.isNull(run.getTeardownError())) {
+            logger.warn(String.format("----- Query name: %s, version id: %d, run %d teardown failed: %s -----",
+                    version.getQuery().getName(), version.getId(), idx, run.getTeardownError()));
+        }
+        logger.info(String.format("----- Query name: %s, version id: %d, run %d, work time: %d ms %s -----",
+                version.getQuery().getName(), version.getId(), idx, run.getWorkTime(), Status.DONE));
+        transition(run, Status.DONE);
+    }
+
+    /* The installation was removed after the run left its queue, before its cancellation reached the run */
+    private void failRemoved(Version version, Run run, long idx) {
+        logger.warn(String.format("----- Query name: %s, version id: %d, run %d %s: DB installation is removed -----",
+                version.getQuery().getName(), version.getId(), idx, Status.FAILED));
+        transition(run, Status.FAILED);
+        runMetrics.recordFailure(idx, Status.FAILED);
+    }
+
+    @Override
+    public int cancelVersion(Long versionId) {
+        logger.info("cancelVersion called");
+        List<RunControl> controls = runControls.getByVersion(versionId);
+        controls.forEach(control -> {
+            control.abort(Status.CANCELLED);
+            // a queued run is dropped right away, an executing one stops with its statement
+            if (!Objects.isNull(control.getTask()) && scheduler.remove(control.getInstallationId(), control.getTask())) {
+                runControls.remove(control);
+                transition(control.getRun(), Status.CANCELLED);
+                runMetrics.recordFailure(control.getInstallationId(), Status.CANCELLED);
+            }
+        });
+        return controls.size();
     }
 
     @Override
@@ -182,24 +576,59 @@ public class QueryServiceImpl implements QueryService {
         query.ifPresent(q -> {
             versionRepository.deleteAll(versionRepository.findByQuery(q));
             queryRepository.deleteById(id);
+            queryCache.evict(q);
         });
     }
 
     @Override
     public void deleteAll() {
         logger.info("deleteAll called");
+        queryCache.evictAll();
         listQueries(Pageable.unpaged()).forEach(q -> deleteQuery(q.getId()));
     }
 
     @Override
     public Version getVersion(Long id) {
         logger.info("getVersion called");
-        return versionRepository.findById(id).orElse(null);
+        runJournal.awaitFlush();
+        return versionRepository.findWithRunsById(id).orElse(null);
     }
 
     @Override
     public Run getRun(Long id) {
         logger.info("getRun called");
+        runJournal.awaitFlush();
         return runRepository.findById(id).orElse(null);
     }
+
+    @Override
+    public VersionProgress followVersion(Long versionId, Consumer<RunEvent> listener) {
+        VersionProgress progress = new VersionProgress(versionId, listener, runEvents);
+        // subscribed before the runs are read, so no transition is missed in between
+        runEvents.subscribe(versionId, progress, progress::close);
+        Version version = getVersion(versionId);
+        if (Objects.isNull(version)) {
+            progress.close();
+            return null;
+        }
+        progress.start(version.getRuns());
+        return progress;
+    }
+
+    @Override
+    public VersionComparison compareVersions(Long versionId, @Nullable Long baselineId, @Nullable Double threshold) {
+        logger.info("compareVersions called");
+        runJournal.awaitFlush();
+        return readOnlyTransaction.execute(status -> {
+            Optional<Version> version = versionRepository.findWithRunsById(versionId);
+            if (!version.isPresent()) {
+                return null;
+            }
+            // the predecessor of the version is the default baseline
+            Optional<Version> baseline = Objects.isNull(baselineId)
+                    ? versionRepository.findFirstByQueryAndIdLessThanOrderByIdDesc(version.get().getQuery(), versionId)
+                    : versionRepository.findWithRunsById(baselineId);
+            return baseline.map(b -> versionComparator.compare(version.get(), b, threshold)).orElse(null);
+        });
+    }
 }
\ No newline at end of file
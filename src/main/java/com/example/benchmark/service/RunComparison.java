@@ -0,0 +1,38 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Installation;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* Comparison of the runs of two versions on the same DB installation */
+@Getter
+@AllArgsConstructor
+public class RunComparison {
+
+    private Long installationId;
+
+    private String jdbcUrl;
+
+    // false when one of the runs isn't done or has no samples, the rest of the values are null then
+    private boolean comparable;
+
+    // medians of the measured iterations, ns
+    private Long baselineMedian;
+
+    private Long candidateMedian;
+
+    // baseline median / candidate median, below 1 means the candidate is slower
+    private Double speedup;
+
+    private Double pValue;
+
+    private boolean regression;
+
+    // null unless both runs were explained
+    private Boolean planChanged;
+
+    static RunComparison notComparable(Installation installation, Boolean planChanged) {
+        return new RunComparison(installation.getId(), installation.getJdbcUrl(), false, null, null, null, null, false,
+                planChanged);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/* Lets other threads stop a run: a run waiting in a queue doesn't start, an executing run gets its
+ * current statements cancelled. The first abort wins, a timed out run stays timed out when cancelled. */
+@Getter
+public class RunControl {
+
+    private final Run run;
+
+    private final long installationId;
+
+    // System.nanoTime() the run was scheduled at
+    private final long scheduledTime = System.nanoTime();
+
+    // the task of the run in the installation queue
+    @Setter
+    private volatile Runnable task;
+
+    // TIMED_OUT or CANCELLED once the run is aborted
+    private volatile Status abortStatus;
+
+    // the executing statements, one per client of a load test
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+    // System.nanoTime() the run has to be done by, 0 if the run has no timeout
+    @Setter
+    private volatile long deadline;
+
+    public RunControl(Run run, long installationId) {
+        this.run = run;
+        this.installationId = installationId;
+    }
+
+    public synchronized void abort(Status status) {
+        if (abortStatus != null) {
+            return;
+        }
+        abortStatus = status;
+        for (Statement current : statements) {
+            try {
+                current.cancel();
+            } catch (SQLException e) {
+                // the statement may have just finished, the next one won't start anyway
+            }
+        }
+    }
+
+    public boolean isAborted() {
+        return abortStatus != null;
+    }
+
+    /* Whole seconds left till the deadline, at least 1 as 0 means no timeout for a statement */
+    int remainingSeconds() {
+        long remaining = deadline - System.nanoTime();
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    void checkAborted() {
+        if (isAborted()) {
+            throw new CancellationException(String.format("Run %d is %s", run.getId(), abortStatus));
+        }
+    }
+
+    /* Makes the statement cancellable, the run is checked right after so an earlier abort isn't missed */
+    synchronized void attach(Statement statement) {
+        statements.add(statement);
+        checkAborted();
+    }
+
+    synchronized void detach(Statement statement) {
+        statements.remove(statement);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.benchmark.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.toList;
+
+/* Controls of the runs that are scheduled or executing, by run ID */
+@Component
+public class RunControls {
+
+    private final Map<Long, RunControl> controls = new ConcurrentHashMap<>();
+
+    public RunControl register(RunControl control) {
+        controls.put(control.getRun().getId(), control);
+        return control;
+    }
+
+    public void remove(RunControl control) {
+        controls.remove(control.getRun().getId());
+    }
+
+    public List<RunControl> getByVersion(Long versionId) {
+        return controls.values().stream()
+                .filter(control -> versionId.equals(control.getRun().getVersion().getId()))
+                .collect(toList());
+    }
+
+    public List<RunControl> getByInstallation(long installationId) {
+        return controls.values().stream()
+                .filter(control -> control.getInstallationId() == installationId)
+                .collect(toList());
+    }
+}
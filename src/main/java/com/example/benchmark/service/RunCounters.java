@@ -0,0 +1,84 @@
+package com.example.benchmark.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* Sums the counter deltas of the measured iterations of a run. The snapshot queries touch the counters as well,
+ * so two snapshots in a row are taken first and their difference is subtracted from every delta.
+ * Counters are best effort, a failed snapshot drops them and the run goes on */
+class RunCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunCounters.class);
+
+    private final CounterCollector collector;
+
+    private final Connection con;
+
+    private final Map<String, Long> deltas = new LinkedHashMap<>();
+
+    private Map<String, Long> overhead;
+
+    private Map<String, Long> before;
+
+    private boolean failed;
+
+    RunCounters(CounterCollector collector, Connection con) {
+        this.collector = collector;
+        this.con = con;
+    }
+
+    void before() {
+        if (failed) {
+            return;
+        }
+        try {
+            if (overhead == null) {
+                Map<String, Long> first = collector.snapshot(con);
+                before = collector.snapshot(con);
+                overhead = difference(before, first);
+            } else {
+                before = collector.snapshot(con);
+            }
+        } catch (SQLException e) {
+            fail(e);
+        }
+    }
+
+    void after() {
+        if (failed) {
+            return;
+        }
+        try {
+            Map<String, Long> after = collector.snapshot(con);
+            difference(after, before).forEach((name, delta) ->
+                    // a counter can't go down because of the measured statement, e.g. H2 query statistics evict entries
+                    deltas.merge(name, Math.max(0, delta - overhead.getOrDefault(name, 0L)), Long::sum));
+        } catch (SQLException e) {
+            fail(e);
+        }
+    }
+
+    Map<String, Long> getDeltas() {
+        return failed ? new LinkedHashMap<>() : deltas;
+    }
+
+    private void fail(SQLException e) {
+        logger.warn(String.format("DB counters can't be read: %s", e.getMessage()));
+        failed = true;
+    }
+
+    private static Map<String, Long> difference(Map<String, Long> to, Map<String, Long> from) {
+        Map<String, Long> difference = new LinkedHashMap<>();
+        to.forEach((name, value) -> {
+            if (from.containsKey(name)) {
+                difference.put(name, value - from.get(name));
+            }
+        });
+        return difference;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/* A status transition of a run, a snapshot taken at the moment it happened */
+@Getter
+@AllArgsConstructor
+public class RunEvent {
+
+    private Long runId;
+
+    private Long versionId;
+
+    private Long installationId;
+
+    private Status status;
+
+    // mean of the measured iterations in ms, 0 till the run is done
+    private Long workTime;
+
+    private LocalDateTime time;
+
+    static RunEvent of(Run run) {
+        return new RunEvent(run.getId(), run.getVersion().getId(),
+                run.getInstallation() == null ? null : run.getInstallation().getId(),
+                run.getStatus(), run.getWorkTime(), LocalDateTime.now());
+    }
+}
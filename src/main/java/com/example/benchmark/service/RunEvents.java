@@ -0,0 +1,134 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/* Status transitions of the runs for the clients following their versions. The events are delivered from memory,
+ * the application DB isn't read. The thread of the transition only queues them: every subscriber has a bounded
+ * queue drained in order by the delivery threads, so a slow client never holds a run, and a subscriber which
+ * can't keep up is dropped instead of holding its events */
+@Component
+public class RunEvents {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${benchmark.events.threads:2}")
+    private int threads;
+
+    // events waiting for a subscriber
+    @Value("${benchmark.events.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private final Map<Long, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private ExecutorService delivery;
+
+    @PostConstruct
+    public void init() {
+        delivery = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("run-events-"));
+    }
+
+    public void publish(Run run) {
+        List<Subscription> versionSubscriptions = subscriptions.get(run.getVersion().getId());
+        if (versionSubscriptions == null) {
+            return;
+        }
+        RunEvent event = RunEvent.of(run);
+        versionSubscriptions.forEach(subscription -> subscription.offer(event));
+    }
+
+    /* overflow is called instead of the listener when the subscriber is dropped */
+    public void subscribe(Long versionId, Consumer<RunEvent> listener, Runnable overflow) {
+        subscriptions.computeIfAbsent(versionId, id -> new CopyOnWriteArrayList<>())
+                .add(new Subscription(versionId, listener, overflow));
+    }
+
+    public void unsubscribe(Long versionId, Consumer<RunEvent> listener) {
+        subscriptions.computeIfPresent(versionId, (id, versionSubscriptions) -> {
+            versionSubscriptions.removeIf(subscription -> subscription.listener == listener);
+            return versionSubscriptions.isEmpty() ? null : versionSubscriptions;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delivery.shutdownNow();
+    }
+
+    private class Subscription {
+
+        private final Long versionId;
+
+        private final Consumer<RunEvent> listener;
+
+        private final Runnable overflow;
+
+        private final BlockingQueue<RunEvent> events = new ArrayBlockingQueue<>(queueCapacity);
+
+        // a single delivery thread drains the queue at a time, so the events keep their order
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscription(Long versionId, Consumer<RunEvent> listener, Runnable overflow) {
+            this.versionId = versionId;
+            this.listener = listener;
+            this.overflow = overflow;
+        }
+
+        void offer(RunEvent event) {
+            if (!events.offer(event)) {
+                logger.warn(String.format("Subscriber of version %d can't keep up with %d events, it is dropped",
+                        versionId, queueCapacity));
+                unsubscribe(versionId, listener);
+                events.clear();
+                schedule(overflow);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                schedule(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                RunEvent event;
+                while ((event = events.poll()) != null) {
+                    try {
+                        listener.accept(event);
+                    } catch (RuntimeException e) {
+                        // a gone client never affects the run
+                        logger.warn(String.format("Run %d event is not delivered: %s", event.getRunId(), e.getMessage()));
+                    }
+                }
+                draining.set(false);
+                // an event offered after the last poll but before the flag was cleared
+            } while (!events.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void schedule(Runnable task) {
+            try {
+                delivery.execute(task);
+            } catch (RejectedExecutionException e) {
+                // shutting down, nobody is listening anymore
+                draining.set(false);
+            }
+        }
+    }
+}
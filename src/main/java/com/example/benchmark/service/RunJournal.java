@@ -0,0 +1,315 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.RunSummary;
+import com.example.benchmark.model.Status;
+import org.hibernate.Session;
+import org.hibernate.StaleStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toSet;
+
+/* Keeps run status transitions in memory and writes them to the application DB in batches
+ * from a background thread, so the benchmark workers don't wait for the application DB.
+ * Only the latest state of a run is kept till the next flush. The versions of the written runs get
+ * their run summaries recounted in the same transaction. States which can't be written are kept and
+ * written again after a growing pause, only the states of deleted runs are dropped. */
+@Component
+public class RunJournal {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RunMetrics runMetrics;
+
+    // ms between flushes
+    @Value("${benchmark.journal.flush-interval:200}")
+    private long flushInterval;
+
+    // pending runs which trigger a flush right away
+    @Value("${benchmark.journal.batch-size:50}")
+    private int batchSize;
+
+    // ms the writes pause after a failed one, doubled with every failure in a row up to the max
+    @Value("${benchmark.journal.retry-interval:1000}")
+    private long retryInterval;
+
+    @Value("${benchmark.journal.max-retry-interval:30000}")
+    private long maxRetryInterval;
+
+    // ms a reader waits for the states recorded before it
+    @Value("${benchmark.journal.await-timeout:10000}")
+    private long awaitTimeout;
+
+    private final Map<Long, Run> pending = new LinkedHashMap<>();
+
+    // sequence numbers of the recorded states and of the last one written, guarded by pending
+    private long recorded;
+    private long written;
+
+    // failed writes in a row and the nano time of the next attempt, written by the writer thread only
+    private volatile int failures;
+    private volatile long retryAt;
+
+    // the only thread writing runs' states
+    private final ScheduledExecutorService writer =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("run-journal-"));
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writer.scheduleWithFixedDelay(this::flushPending, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /* Records the current state of an already stored run. The states recorded once the journal is stopped
+     * aren't written, the run is left in its last written state */
+    public void record(Run run) {
+        if (writer.isShutdown()) {
+            logger.warn(String.format("The journal is stopped, state %s of run %d isn't written",
+                    run.getStatus(), run.getId()));
+            return;
+        }
+        Run snapshot = new Run();
+        BeanUtils.copyProperties(run, snapshot);
+        int size;
+        synchronized (pending) {
+            pending.put(snapshot.getId(), snapshot);
+            recorded++;
+            size = pending.size();
+        }
+        if (size >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /* Blocks till the states recorded before the call are written, reads made after that see them.
+     * Doesn't wait if they are written already, nor while the writes pause after a failure.
+     * Must be called outside of a transaction: the writer needs a connection of the same pool */
+    public void awaitFlush() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(awaitTimeout);
+        synchronized (pending) {
+            long target = recorded;
+            if (written >= target) {
+                return;
+            }
+            requestFlush();
+            try {
+                while (written < target && !isPaused()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        logger.warn(String.format("Journal flush didn't finish in %d ms, runs may be read in an earlier state",
+                                awaitTimeout));
+                        return;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(pending, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void requestFlush() {
+        try {
+            writer.execute(this::flushPending);
+        } catch (RejectedExecutionException e) {
+            // stopped meanwhile, the pending states are drained by the shutdown
+        }
+    }
+
+    private boolean isPaused() {
+        return failures > 0 && System.nanoTime() - retryAt < 0;
+    }
+
+    private void flushPending() {
+        // the states which failed are kept till the pause is over
+        if (isPaused()) {
+            return;
+        }
+        flush();
+    }
+
+    private void flush() {
+        List<Run> runs;
+        long upTo;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            runs = new ArrayList<>(pending.values());
+            pending.clear();
+            upTo = recorded;
+        }
+        List<Run> failed = new ArrayList<>();
+        try {
+            write(runs);
+        } catch (RuntimeException e) {
+            if (!isGone(e)) {
+                failed.addAll(runs);
+            } else {
+                // a run is gone together with its deleted query, save the rest one by one
+                logger.warn(String.format("Batch of %d runs failed, writing them one by one: %s", runs.size(), e.getMessage()));
+                runs.forEach(run -> {
+                    try {
+                        write(Collections.singletonList(run));
+                    } catch (RuntimeException ex) {
+                        if (isGone(ex)) {
+                            logger.info(String.format("Run %d is deleted, its state is dropped", run.getId()));
+                        } else {
+                            failed.add(run);
+                        }
+                    }
+                });
+            }
+            if (!failed.isEmpty()) {
+                retry(failed, e);
+                return;
+            }
+        }
+        synchronized (pending) {
+            failures = 0;
+            written = upTo;
+            pending.notifyAll();
+        }
+    }
+
+    private void retry(List<Run> runs, RuntimeException e) {
+        long pause = Math.min(retryInterval << Math.min(failures, 16), maxRetryInterval);
+        synchronized (pending) {
+            // a state recorded in the meantime is newer
+            runs.forEach(run -> pending.putIfAbsent(run.getId(), run));
+            retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pause);
+            failures++;
+            // the readers don't wait for the pause
+            pending.notifyAll();
+        }
+        logger.warn(String.format("States of %d runs aren't written, retrying in %d ms: %s", runs.size(), pause, e.getMessage()));
+    }
+
+    // the row of the run isn't there any more
+    private static boolean isGone(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void write(List<Run> runs) {
+        runMetrics.recordPersistence("journal", () -> transactionTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            // the runs are detached snapshots, update them without reading them back
+            runs.forEach(session::update);
+            session.flush();
+            summarize(runs.stream().map(run -> run.getVersion().getId()).collect(toSet()));
+            return null;
+        }));
+    }
+
+    /* Recounts the runs of the given versions and stores the result on the versions,
+     * the journal is the only writer of the runs so the summaries can't go stale */
+    private void summarize(Set<Long> versionIds) {
+        Map<Long, RunSummary> summaries = new HashMap<>();
+        List<Object[]> rows = entityManager.createQuery(
+                "select r.version.id, r.status, count(r), min(r.workTime), max(r.workTime) from Run r " +
+                        "where r.version.id in :ids group by r.version.id, r.status", Object[].class)
+                .setParameter("ids", versionIds)
+                .getResultList();
+        for (Object[] row : rows) {
+            RunSummary summary = summaries.computeIfAbsent((Long) row[0], id -> new RunSummary());
+            int count = ((Long) row[2]).intValue();
+            summary.setRunCount(summary.getRunCount() + count);
+            switch ((Status) row[1]) {
+                case SCHEDULED:
+                    summary.setScheduledCount(count);
+                    break;
+                case EXECUTING:
+                    summary.setExecutingCount(count);
+                    break;
+                case DONE:
+                    summary.setDoneCount(count);
+                    summary.setBestWorkTime((Long) row[3]);
+                    summary.setWorstWorkTime((Long) row[4]);
+                    break;
+                case FAILED:
+                    summary.setFailedCount(count);
+                    break;
+                case TIMED_OUT:
+                    summary.setTimedOutCount(count);
+                    break;
+                case CANCELLED:
+                    summary.setCancelledCount(count);
+                    break;
+                case INTERRUPTED:
+                    summary.setInterruptedCount(count);
+                    break;
+            }
+        }
+        summaries.forEach((id, summary) -> entityManager.createQuery(
+                "update Version v set v.summary.status = :status, v.summary.runCount = :runCount, " +
+                        "v.summary.scheduledCount = :scheduled, v.summary.executingCount = :executing, " +
+                        "v.summary.doneCount = :done, v.summary.failedCount = :failed, " +
+                        "v.summary.timedOutCount = :timedOut, v.summary.cancelledCount = :cancelled, " +
+                        "v.summary.interruptedCount = :interrupted, " +
+                        "v.summary.bestWorkTime = :best, v.summary.worstWorkTime = :worst where v.id = :id")
+                .setParameter("status", summary.calculateStatus())
+                .setParameter("runCount", summary.getRunCount())
+                .setParameter("scheduled", summary.getScheduledCount())
+                .setParameter("executing", summary.getExecutingCount())
+                .setParameter("done", summary.getDoneCount())
+                .setParameter("failed", summary.getFailedCount())
+                .setParameter("timedOut", summary.getTimedOutCount())
+                .setParameter("cancelled", summary.getCancelledCount())
+                .setParameter("interrupted", summary.getInterruptedCount())
+                .setParameter("best", summary.getBestWorkTime())
+                .setParameter("worst", summary.getWorstWorkTime())
+                .setParameter("id", id)
+                .executeUpdate());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(flushInterval, TimeUnit.MILLISECONDS);
+        // drain what is left after the writer is stopped, once more regardless of the pause
+        flush();
+        synchronized (pending) {
+            if (!pending.isEmpty()) {
+                logger.error(String.format("States of %d runs are lost on shutdown", pending.size()));
+            }
+        }
+    }
+}
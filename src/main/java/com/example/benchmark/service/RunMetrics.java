@@ -0,0 +1,71 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/* Timings of the runs per DB installation and of the application DB writes:
+ * benchmark.run.wait - time from scheduling of a run till its start
+ * benchmark.run.execution - time the run occupies the installation
+ * benchmark.run.failures - runs that didn't finish, by status
+ * benchmark.persistence - application DB writes, by operation */
+@Component
+public class RunMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Map<Long, Timer> waitTimers = new ConcurrentHashMap<>();
+
+    private final Map<Long, Timer> executionTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RunMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordWait(long installationId, long nanos) {
+        waitTimers.computeIfAbsent(installationId,
+                id -> timer("benchmark.run.wait", "Time runs wait in the installation queue", id))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordExecution(long installationId, long nanos) {
+        executionTimers.computeIfAbsent(installationId,
+                id -> timer("benchmark.run.execution", "Time runs execute on the installation", id))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(long installationId, Status status) {
+        Counter.builder("benchmark.run.failures")
+                .description("Runs that failed, timed out, were cancelled or interrupted")
+                .tag("installation", String.valueOf(installationId))
+                .tag("status", status.name())
+                .register(registry)
+                .increment();
+    }
+
+    public <T> T recordPersistence(String operation, Supplier<T> write) {
+        return Timer.builder("benchmark.persistence")
+                .description("Writes to the application DB")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(write);
+    }
+
+    private Timer timer(String name, String description, long installationId) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("installation", String.valueOf(installationId))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.benchmark.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/* Recovers the runs of the previous process when the application starts. Lifecycle beans are started
+ * before the web server takes requests, so the recovered runs are dispatched before any new version
+ * and a version submitted right after the start isn't recovered and dispatched a second time */
+@Component
+public class RunRecovery implements SmartLifecycle {
+
+    @Autowired
+    private QueryService queryService;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        queryService.recoverRuns();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
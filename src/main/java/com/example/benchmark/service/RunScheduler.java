@@ -0,0 +1,173 @@
+package com.example.benchmark.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/* Queues the runs of every DB installation.
+ * An installation with concurrency 1 is exclusive: only one run is active on the DB at any point of time.
+ * With concurrency K the installation is shared by up to K runs. The queue of waiting runs is bounded.
+ * A load test holds the installation: it waits for the executing runs and the next runs wait for it.
+ * Installations are added and removed by the InstallationRegistry while the application runs. */
+@Component
+public class RunScheduler {
+
+    public static final int DEFAULT_CONCURRENCY = 1;
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final MeterRegistry registry;
+
+    private final Map<Long, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RunScheduler(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void add(long installationId, int concurrency, int capacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(capacity),
+                new CustomizableThreadFactory(String.format("installation-%d-", installationId)));
+        Hold hold = new Hold();
+        holds.put(installationId, hold);
+        executors.put(installationId, executor);
+        Gauge.builder("benchmark.queue.depth", executor, e -> e.getQueue().size())
+                .description("Runs waiting for the DB installation")
+                .tag("installation", String.valueOf(installationId))
+                .register(registry);
+        Gauge.builder("benchmark.queue.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Runs executing on the DB installation")
+                .tag("installation", String.valueOf(installationId))
+                .register(registry);
+        Gauge.builder("benchmark.queue.held", hold, h -> h.loadTest ? 1 : 0)
+                .description("1 while a load test holds the DB installation and its runs wait")
+                .tag("installation", String.valueOf(installationId))
+                .register(registry);
+        logger.info(String.format("DB installation %d: concurrency %d, queue capacity %d",
+                installationId, concurrency, capacity));
+    }
+
+    /* Stops taking runs of the installation, the queued ones are still started.
+     * Returns null if there is no such installation */
+    public ThreadPoolExecutor remove(long installationId) {
+        ThreadPoolExecutor executor = executors.remove(installationId);
+        holds.remove(installationId);
+        if (executor != null) {
+            executor.shutdown();
+        }
+        return executor;
+    }
+
+    /* Runs are started in the order they are submitted to an installation.
+     * Throws RejectedExecutionException when the installation queue is full or the installation is removed */
+    public void submit(long installationId, Runnable run) throws RejectedExecutionException {
+        ThreadPoolExecutor executor = executors.get(installationId);
+        if (executor == null) {
+            throw new RejectedExecutionException(String.format("There is no DB installation %d", installationId));
+        }
+        executor.execute(run);
+    }
+
+    /* Drops a run which hasn't started yet, false if it is already taken by the executor */
+    public boolean remove(long installationId, Runnable run) {
+        ThreadPoolExecutor executor = executors.get(installationId);
+        return executor != null && executor.remove(run);
+    }
+
+    public int getQueueDepth(long installationId) {
+        ThreadPoolExecutor executor = executors.get(installationId);
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /* Waits till the run may use the installation, false if the run is aborted meanwhile.
+     * Runs share the installation up to its concurrency, a load test takes it alone: it waits for the executing
+     * runs and the runs coming after it wait till it is released */
+    public boolean acquire(long installationId, boolean loadTest, RunControl control) {
+        Hold hold = holds.get(installationId);
+        if (hold == null) {
+            // the installation is removed, the run fails without touching it
+            return true;
+        }
+        try {
+            return loadTest ? hold.acquireLoadTest(control) : hold.acquireRun(control);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release(long installationId, boolean loadTest) {
+        Hold hold = holds.get(installationId);
+        if (hold != null) {
+            hold.release(loadTest);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    /* The runs and the load test using an installation. A waiting load test goes before the runs coming after it,
+     * the waits wake up often enough to notice an aborted run */
+    private static class Hold {
+        private int runs;
+        // read by the gauge
+        private volatile boolean loadTest;
+        private int waitingLoadTests;
+
+        private synchronized boolean acquireRun(RunControl control) throws InterruptedException {
+            while ((loadTest || waitingLoadTests > 0) && !control.isAborted()) {
+                wait(100);
+            }
+            if (control.isAborted()) {
+                return false;
+            }
+            runs++;
+            return true;
+        }
+
+        private synchronized boolean acquireLoadTest(RunControl control) throws InterruptedException {
+            waitingLoadTests++;
+            try {
+                while ((loadTest || runs > 0) && !control.isAborted()) {
+                    wait(100);
+                }
+            } finally {
+                waitingLoadTests--;
+                notifyAll();
+            }
+            if (control.isAborted()) {
+                return false;
+            }
+            loadTest = true;
+            return true;
+        }
+
+        private synchronized void release(boolean loadTest) {
+            if (loadTest) {
+                this.loadTest = false;
+            } else {
+                runs--;
+            }
+            notifyAll();
+        }
+    }
+}
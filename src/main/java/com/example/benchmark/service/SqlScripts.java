@@ -0,0 +1,47 @@
+package com.example.benchmark.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public final class SqlScripts {
+
+    private SqlScripts() {
+    }
+
+    /* The statements of a script separated by semicolons, semicolons of quoted strings and identifiers
+     * don't separate statements, empty statements are dropped */
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        if (Objects.isNull(script)) {
+            return statements;
+        }
+        StringBuilder statement = new StringBuilder();
+        char quote = 0;
+        boolean escaped = false;
+        for (char c : script.toCharArray()) {
+            if (quote == 0 && c == ';') {
+                add(statements, statement);
+                continue;
+            }
+            if (quote == 0 && (c == '\'' || c == '"' || c == '`')) {
+                quote = c;
+            } else if (c == quote && !escaped) {
+                quote = 0;
+            }
+            // MySQL escapes quotes in literals with a backslash
+            escaped = quote != 0 && c == '\\' && !escaped;
+            statement.append(c);
+        }
+        add(statements, statement);
+        return statements;
+    }
+
+    private static void add(List<String> statements, StringBuilder statement) {
+        String sql = statement.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        statement.setLength(0);
+    }
+}
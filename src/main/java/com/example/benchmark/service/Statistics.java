@@ -0,0 +1,122 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.LatencyStats;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class Statistics {
+
+    private Statistics() {
+    }
+
+    public static LatencyStats latencyStats(List<Long> samples) {
+        if (samples.isEmpty()) {
+            return null;
+        }
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        double variance = Arrays.stream(sorted).mapToDouble(s -> (s - mean) * (s - mean)).sum() / sorted.length;
+        return new LatencyStats(sorted.length,
+                sorted[0],
+                Math.round(mean),
+                percentile(sorted, 50),
+                percentile(sorted, 90),
+                percentile(sorted, 99),
+                sorted[sorted.length - 1],
+                Math.sqrt(variance));
+    }
+
+    /* The stats of every bind set of a parameterized run, sample i was measured with bind set i % bindSetCount */
+    public static List<LatencyStats> latencyStatsByBindSet(List<Long> samples, int bindSetCount) {
+        List<List<Long>> bySet = new ArrayList<>(bindSetCount);
+        for (int set = 0; set < bindSetCount; set++) {
+            bySet.add(new ArrayList<>());
+        }
+        for (int i = 0; i < samples.size(); i++) {
+            bySet.get(i % bindSetCount).add(samples.get(i));
+        }
+        List<LatencyStats> stats = new ArrayList<>(bindSetCount);
+        bySet.forEach(setSamples -> stats.add(latencyStats(setSamples)));
+        return stats;
+    }
+
+    public static LatencyStats latencyStats(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return null;
+        }
+        return new LatencyStats((int) histogram.getTotalCount(),
+                histogram.getMinValue(),
+                Math.round(histogram.getMean()),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getMaxValue(),
+                histogram.getStdDeviation());
+    }
+
+    public static long median(List<Long> samples) {
+        return percentile(samples.stream().mapToLong(Long::longValue).sorted().toArray(), 50);
+    }
+
+    /* Two-sided p-value of the Mann-Whitney U test, normal approximation with tie and continuity corrections.
+     * A small value means the two samples are unlikely to come from the same distribution. */
+    public static double mannWhitneyPValue(List<Long> x, List<Long> y) {
+        int n1 = x.size();
+        int n2 = y.size();
+        int n = n1 + n2;
+        if (n1 == 0 || n2 == 0) {
+            return 1.0;
+        }
+        // pooled samples sorted by value, the first column marks the samples of x
+        long[][] pooled = new long[n][];
+        for (int i = 0; i < n; i++) {
+            pooled[i] = i < n1 ? new long[]{1, x.get(i)} : new long[]{0, y.get(i - n1)};
+        }
+        Arrays.sort(pooled, (a, b) -> Long.compare(a[1], b[1]));
+
+        double rankSumX = 0;
+        double ties = 0;
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && pooled[j][1] == pooled[i][1]) {
+                j++;
+            }
+            // tied samples share the average of their ranks
+            double rank = (i + 1 + j) / 2.0;
+            for (int k = i; k < j; k++) {
+                rankSumX += pooled[k][0] * rank;
+            }
+            double t = j - i;
+            ties += t * t * t - t;
+            i = j;
+        }
+
+        double u = rankSumX - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * (double) n2 / 2;
+        double variance = n1 * (double) n2 / 12 * ((n + 1) - ties / ((double) n * (n - 1)));
+        if (variance <= 0) {
+            return 1.0;
+        }
+        double z = Math.max(Math.abs(u - mean) - 0.5, 0) / Math.sqrt(variance);
+        return Math.min(1.0, erfc(z / Math.sqrt(2)));
+    }
+
+    // complementary error function, fractional error below 1.2e-7
+    static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+
+    // nearest-rank percentile over the sorted samples
+    static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.benchmark.service;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Keeps the order of submissions without holding a lock while they are persisted.
+ * A submission takes a ticket when it arrives, stores its version and runs in parallel with the others
+ * and then hands over its dispatch action. A single dispatcher thread runs the actions strictly in ticket order,
+ * waiting for the submissions that are still being persisted. */
+@Component
+public class SubmissionSequencer {
+
+    private final AtomicLong nextTicket = new AtomicLong();
+
+    // guarded by ready
+    private long nextToDispatch = 0;
+    private final Map<Long, Runnable> ready = new HashMap<>();
+
+    private final ExecutorService dispatcher =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("dispatcher-"));
+
+    public long ticket() {
+        return nextTicket.getAndIncrement();
+    }
+
+    /* The action is run after the actions of all earlier tickets */
+    public void dispatch(long ticket, Runnable action) {
+        synchronized (ready) {
+            ready.put(ticket, action);
+        }
+        dispatcher.execute(this::drain);
+    }
+
+    /* Releases a ticket of a submission that failed, so the later ones are not held back */
+    public void skip(long ticket) {
+        dispatch(ticket, () -> {
+        });
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable action;
+            synchronized (ready) {
+                action = ready.remove(nextToDispatch);
+                if (action == null) {
+                    return;
+                }
+                nextToDispatch++;
+            }
+            action.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+}
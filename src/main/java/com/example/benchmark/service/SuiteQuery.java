@@ -0,0 +1,23 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.BindSource;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.SessionScript;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* A query of a suite: its name, the SQL of its new version with its bind sets and script, the measurement options */
+@Getter
+@AllArgsConstructor
+public class SuiteQuery {
+
+    private String name;
+
+    private String txt;
+
+    private BindSource bindSource;
+
+    private SessionScript script;
+
+    private RunOptions options;
+}
@@ -0,0 +1,73 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Version;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/* Compares the samples of two versions per DB installation. A run regresses when its median got slower
+ * than the threshold allows and the difference is significant by the Mann-Whitney U test. */
+@Component
+public class VersionComparator {
+
+    @Value("${benchmark.comparison.regression-threshold:0.05}")
+    private double regressionThreshold;
+
+    @Value("${benchmark.comparison.significance:0.05}")
+    private double significance;
+
+    public VersionComparison compare(Version candidate, Version baseline, @Nullable Double threshold) {
+        double limit = Objects.isNull(threshold) ? regressionThreshold : threshold;
+        // the runs of both versions are matched by the installation they were executed on
+        Map<Long, Run> baselineRuns = baseline.getRuns().stream()
+                .collect(toMap(run -> run.getInstallation().getId(), Function.identity(), (a, b) -> b));
+        List<RunComparison> installations = candidate.getRuns().stream()
+                .map(run -> compare(run, baselineRuns.get(run.getInstallation().getId()), limit))
+                .collect(toList());
+        boolean complete = !installations.isEmpty() && installations.size() == baselineRuns.size()
+                && installations.stream().allMatch(RunComparison::isComparable);
+        boolean regression = installations.stream().anyMatch(RunComparison::isRegression);
+        boolean planChanged = installations.stream().anyMatch(c -> Boolean.TRUE.equals(c.getPlanChanged()));
+        return new VersionComparison(candidate.getId(), baseline.getId(), limit, complete, regression, planChanged,
+                installations);
+    }
+
+    RunComparison compare(Run candidate, @Nullable Run baseline, double threshold) {
+        Boolean planChanged = planChanged(candidate, baseline);
+        if (!isMeasured(candidate) || !isMeasured(baseline)) {
+            return RunComparison.notComparable(candidate.getInstallation(), planChanged);
+        }
+        long baselineMedian = Statistics.median(baseline.getSamples());
+        long candidateMedian = Statistics.median(candidate.getSamples());
+        double speedup = candidateMedian == 0 ? 1.0 : baselineMedian / (double) candidateMedian;
+        double pValue = Statistics.mannWhitneyPValue(baseline.getSamples(), candidate.getSamples());
+        boolean regression = candidateMedian > baselineMedian * (1 + threshold) && pValue < significance;
+        Installation installation = candidate.getInstallation();
+        return new RunComparison(installation.getId(), installation.getJdbcUrl(), true, baselineMedian, candidateMedian,
+                speedup, pValue, regression, planChanged);
+    }
+
+    private static Boolean planChanged(Run candidate, @Nullable Run baseline) {
+        if (Objects.isNull(baseline) || Objects.isNull(candidate.getPlanFingerprint())
+                || Objects.isNull(baseline.getPlanFingerprint())) {
+            return null;
+        }
+        return !candidate.getPlanFingerprint().equals(baseline.getPlanFingerprint());
+    }
+
+    private static boolean isMeasured(@Nullable Run run) {
+        return !Objects.isNull(run) && run.getStatus() == Status.DONE
+                && !Objects.isNull(run.getSamples()) && !run.getSamples().isEmpty();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.benchmark.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class VersionComparison {
+
+    private Long versionId;
+
+    private Long baselineId;
+
+    // the slowdown tolerated before a significant difference is a regression, 0.1 is 10%
+    private double threshold;
+
+    // all runs of both versions are done and compared
+    private boolean complete;
+
+    private boolean regression;
+
+    // the plan of at least one DB installation differs from the baseline one
+    private boolean planChanged;
+
+    private List<RunComparison> installations;
+}
@@ -0,0 +1,70 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/* The runs of a version followed by a client. The listener gets the state of every run once, then its transitions.
+ * finished completes when all runs are finished, the progress stops following the version then.
+ * The transitions are delivered asynchronously, one queued before the runs were read may come after them,
+ * so nothing is sent for a run which is already finished */
+public class VersionProgress implements Consumer<RunEvent> {
+
+    @Getter
+    private final Long versionId;
+
+    private final Consumer<RunEvent> listener;
+
+    private final RunEvents runEvents;
+
+    private final Map<Long, Status> statuses = new ConcurrentHashMap<>();
+
+    @Getter
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+    private int runCount = -1;
+
+    VersionProgress(Long versionId, Consumer<RunEvent> listener, RunEvents runEvents) {
+        this.versionId = versionId;
+        this.listener = listener;
+        this.runEvents = runEvents;
+    }
+
+    @Override
+    public synchronized void accept(RunEvent event) {
+        Status known = statuses.get(event.getRunId());
+        if (finished.isDone() || known == event.getStatus() || known != null && known.isFinished()) {
+            return;
+        }
+        statuses.put(event.getRunId(), event.getStatus());
+        listener.accept(event);
+        checkFinished();
+    }
+
+    /* The runs read after the progress is subscribed, a transition that came before them is newer */
+    synchronized void start(List<Run> runs) {
+        runCount = runs.size();
+        runs.stream()
+                .filter(run -> !statuses.containsKey(run.getId()))
+                .forEach(run -> accept(RunEvent.of(run)));
+        checkFinished();
+    }
+
+    public void close() {
+        runEvents.unsubscribe(versionId, this);
+        finished.cancel(false);
+    }
+
+    private void checkFinished() {
+        if (runCount >= 0 && statuses.size() >= runCount && statuses.values().stream().allMatch(Status::isFinished)) {
+            runEvents.unsubscribe(versionId, this);
+            finished.complete(null);
+        }
+    }
+}
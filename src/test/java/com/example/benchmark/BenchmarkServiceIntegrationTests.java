@@ -1,8 +1,29 @@
 package com.example.benchmark;
 
+import com.example.benchmark.dao.QueryRepository;
+import com.example.benchmark.dao.RunRepository;
+import com.example.benchmark.dao.VersionRepository;
+import com.example.benchmark.dto.NewInstallationRequest;
 import com.example.benchmark.dto.NewQueryRequest;
+import com.example.benchmark.dto.NewSuiteRequest;
+import com.example.benchmark.dto.RunOptionsDto;
+import com.example.benchmark.model.CacheMode;
+import com.example.benchmark.model.ConnectionMode;
+import com.example.benchmark.model.IsolationLevel;
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.InstallationStatus;
+import com.example.benchmark.model.Query;
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.RunSummary;
 import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Version;
+import com.example.benchmark.service.Hashing;
+import com.example.benchmark.service.InstallationRegistry;
 import com.example.benchmark.service.QueryService;
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,12 +32,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
-import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -24,19 +46,28 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.http.MockHttpOutputMessage;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import javax.persistence.EntityManagerFactory;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -50,16 +81,35 @@ public class BenchmarkServiceIntegrationTests {
     @Autowired
     private QueryService service;
 
+    @Autowired
+    private QueryRepository queryRepository;
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Autowired
+    private RunRepository runRepository;
+
+    @Autowired
+    private InstallationRegistry installationRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     // number of DB installations
     private static final int N_SOURCES = 2;
     // duration of one DB run, seconds
     private static final int EXEC_TIME_COEFF = 5;
     // DB load coefficient: 0 means queries will take the same time
     private static int db_equality_coeff = 0;
+    // time given to the runs to store their results after the DB is done, milliseconds
+    private static final int SETTLE_TIME = 500;
 
 
     /*Inner test configuration class for stubbing DB installations
-    * and simulating different DB load*/
+    * and simulating different DB load.
+    * Every installation is an in-memory H2 DB where the tables used by the tests
+    * are views calling runQuery, which takes the time the installation is loaded with*/
     @TestConfiguration
     static class ContextConfiguration {
 
@@ -69,23 +119,31 @@ public class BenchmarkServiceIntegrationTests {
         public List<JdbcTemplate> sources() {
             List<JdbcTemplate> sources = new ArrayList<>(N_SOURCES);
             IntStream.range(0, N_SOURCES)
-                    .forEach(idx ->
-                            sources.add(new JdbcTemplate() {
-                                            @Override
-                                            public void execute(String sql) throws DataAccessException {
-                                                try {
-                                                    long secs = (idx * db_equality_coeff + 1) * EXEC_TIME_COEFF;
-                                                    logger.info(String.format("Running query for %d seconds", secs));
-                                                    TimeUnit.SECONDS.sleep(secs);
-                                                } catch (InterruptedException e) {
-                                                }
-                                            }
-                                        }
-                            ));
+                    .forEach(idx -> {
+                        JdbcTemplate jdbcTemplate = new JdbcTemplate(DataSourceBuilder.create()
+                                .driverClassName("org.h2.Driver")
+                                .url(String.format("jdbc:h2:mem:installation%d;DB_CLOSE_DELAY=-1", idx))
+                                .username("sa")
+                                .build());
+                        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS RUN_QUERY FOR \""
+                                + BenchmarkServiceIntegrationTests.class.getName() + ".runQuery\"");
+                        Stream.of("test", "test2", "testxxx").forEach(table ->
+                                jdbcTemplate.execute(String.format(
+                                        "CREATE VIEW IF NOT EXISTS %s AS SELECT RUN_QUERY(%d) AS result", table, idx)));
+                        sources.add(jdbcTemplate);
+                    });
             return sources;
         }
     }
 
+    public static int runQuery(int idx) throws InterruptedException {
+        long secs = (idx * db_equality_coeff + 1) * EXEC_TIME_COEFF;
+        LoggerFactory.getLogger(BenchmarkServiceIntegrationTests.class)
+                .info(String.format("Running query for %d seconds", secs));
+        TimeUnit.SECONDS.sleep(secs);
+        return idx;
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -126,7 +184,7 @@ public class BenchmarkServiceIntegrationTests {
 
         // wait till all runs are done
         // since the runs happen in parallel, the total execution time should not exceed EXEC_TIME_COEFF
-        TimeUnit.SECONDS.sleep(EXEC_TIME_COEFF);
+        waitForRuns(EXEC_TIME_COEFF);
     }
 
     @Test
@@ -170,7 +228,7 @@ public class BenchmarkServiceIntegrationTests {
 
         // wait till all runs are done
         // since the runs happen in parallel, the total execution time should not exceed EXEC_TIME_COEFF
-        TimeUnit.SECONDS.sleep(EXEC_TIME_COEFF);
+        waitForRuns(EXEC_TIME_COEFF);
 
         this.mockMvc.perform(get("/query/list"))
                 .andExpect(status().isOk())
@@ -191,6 +249,46 @@ public class BenchmarkServiceIntegrationTests {
                 .andExpect(jsonPath("$.versions[1].runs", hasSize(N_SOURCES)));
     }
 
+    @Test
+    public void resubmitSameQueryReusesVersion() throws Exception {
+        runOneQuery();
+        this.mockMvc.perform(post("/query/createOrUpdate")
+                .content(this.json(new NewQueryRequest(QUERY_NAME, "  " + QUERY_TXT.replace(" ", "\n  ") + ";")))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versions", hasSize(1)))
+                .andExpect(jsonPath("$.versions[0].txt", is(QUERY_TXT)))
+                .andExpect(jsonPath("$.versions[0].status", is(Status.DONE.name())));
+    }
+
+    @Test
+    public void exposeRunMetrics() throws Exception {
+        runOneQuery();
+        List<Installation> installations = installationRegistry.getActive();
+        this.mockMvc.perform(get("/actuator/metrics/benchmark.run.execution")
+                .param("tag", "installation:" + installations.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic == 'COUNT')].value", hasItem(greaterThanOrEqualTo(1.0))));
+
+        this.mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(String.format("benchmark_run_wait_seconds_count{installation=\"%d\",}",
+                        installations.get(1).getId()))))
+                .andExpect(content().string(containsString("benchmark_persistence_seconds_count{operation=\"journal\",}")));
+    }
+
+    @Test
+    public void reportInstallationsHealth() throws Exception {
+        List<Installation> installations = installationRegistry.getActive();
+        this.mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("UP")))
+                .andExpect(jsonPath(String.format("$.details.benchmark.details.installation-%d.status",
+                        installations.get(0).getId()), is("UP")))
+                .andExpect(jsonPath(String.format("$.details.benchmark.details.installation-%d.details.circuit",
+                        installations.get(1).getId()), is("CLOSED")));
+    }
+
     @Test
     public void executeTheLatestVersionOfQuery() throws Exception {
         runOneQuery();
@@ -207,12 +305,56 @@ public class BenchmarkServiceIntegrationTests {
 
         // wait till all runs are done
         // since the runs happen in parallel, the total execution time should not exceed EXEC_TIME_COEFF
-        TimeUnit.SECONDS.sleep(EXEC_TIME_COEFF);
+        waitForRuns(EXEC_TIME_COEFF);
 
         this.mockMvc.perform(get("/query/list"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)));
 
+        // every sample is kept, so the iterations are bounded
+        this.mockMvc.perform(get("/query/execute/{name}", QUERY_NAME)
+                .param("iterations", String.valueOf(RunOptions.MAX_ITERATIONS + 1)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void listVersionsByStatus() throws Exception {
+        runOneQuery();
+        this.mockMvc.perform(get("/query/versions/{name}", QUERY_NAME).param("status", Status.DONE.name()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].txt", is(QUERY_TXT)))
+                .andExpect(jsonPath("$[0].status", is(Status.DONE.name())))
+                .andExpect(jsonPath("$[0].summary.runCount", is(N_SOURCES)))
+                .andExpect(jsonPath("$[0].summary.doneCount", is(N_SOURCES)))
+                .andExpect(jsonPath("$[0].summary.bestWorkTime", notNullValue()))
+                .andExpect(jsonPath("$[0].summary.worstWorkTime", notNullValue()));
+
+        this.mockMvc.perform(get("/query/versions/{name}", QUERY_NAME).param("status", Status.FAILED.name()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    @Test
+    public void compareWithPreviousVersion() throws Exception {
+        runOneQuery();
+        this.mockMvc.perform(get("/query/execute/{name}", QUERY_NAME))
+                .andExpect(status().isOk());
+        waitForRuns(EXEC_TIME_COEFF);
+
+        String response = this.mockMvc.perform(get("/query/findByName/{name}", QUERY_NAME))
+                .andReturn().getResponse().getContentAsString();
+        Integer versionId = JsonPath.read(response, "$.versions[0].id");
+        Integer baselineId = JsonPath.read(response, "$.versions[1].id");
+
+        this.mockMvc.perform(get("/query/compare/{id}", versionId).param("failOnRegression", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versionId", is(versionId)))
+                .andExpect(jsonPath("$.baselineId", is(baselineId)))
+                .andExpect(jsonPath("$.complete", is(true)))
+                .andExpect(jsonPath("$.regression", is(false)))
+                .andExpect(jsonPath("$.installations", hasSize(N_SOURCES)))
+                .andExpect(jsonPath("$.installations[0].comparable", is(true)));
     }
 
     @Test
@@ -239,7 +381,7 @@ public class BenchmarkServiceIntegrationTests {
 
         // wait till all runs are done
         // since the runs happen in parallel per Query, the total execution time should not exceed 2 * EXEC_TIME_COEFF
-        TimeUnit.SECONDS.sleep(2 * EXEC_TIME_COEFF);
+        waitForRuns(2 * EXEC_TIME_COEFF);
     }
 
     @Test
@@ -311,6 +453,382 @@ public class BenchmarkServiceIntegrationTests {
         TimeUnit.SECONDS.sleep(EXEC_TIME_COEFF / 2);
     }
 
+    @Test
+    public void cancelScheduledVersion() throws Exception {
+        this.mockMvc.perform(post("/query/createOrUpdate")
+                .content(this.json(new NewQueryRequest(QUERY_NAME, QUERY_TXT)))
+                .contentType(contentType))
+                .andExpect(status().isOk());
+
+        String response = this.mockMvc.perform(post("/query/createOrUpdate")
+                .content(this.json(new NewQueryRequest(QUERY_NAME + "2", QUERY_TXT + "2")))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Integer versionId = JsonPath.read(response, "$.versions[0].id");
+
+        // the second query waits behind the first one on every installation
+        this.mockMvc.perform(post("/query/cancel/{id}", versionId))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/query/showVersion/{id}", versionId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(Status.CANCELLED.name())))
+                .andExpect(jsonPath("$.runs[0].status", is(Status.CANCELLED.name())))
+                .andExpect(jsonPath("$.runs[1].status", is(Status.CANCELLED.name())));
+
+        this.mockMvc.perform(get("/query/findByName/{name}", QUERY_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versions[0].status", is(Status.EXECUTING.name())));
+    }
+
+    @Test
+    public void resubmitCancelledQueryMeasuresAgain() throws Exception {
+        this.mockMvc.perform(post("/query/createOrUpdate")
+                .content(this.json(new NewQueryRequest(QUERY_NAME, QUERY_TXT)))
+                .contentType(contentType))
+                .andExpect(status().isOk());
+
+        String response = this.mockMvc.perform(post("/query/createOrUpdate")
+                .content(this.json(new NewQueryRequest(QUERY_NAME + "2", QUERY_TXT + "2")))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Integer versionId = JsonPath.read(response, "$.versions[0].id");
+        this.mockMvc.perform(post("/query/cancel/{id}", versionId))
+                .andExpect(status().isOk());
+
+        // the cancelled version isn't reused, the same SQL gets a new version
+        this.mockMvc.perform(post("/query/createOrUpdate")
+                .content(this.json(new NewQueryRequest(QUERY_NAME + "2", QUERY_TXT + "2")))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versions", hasSize(2)))
+                .andExpect(jsonPath("$.versions[0].id", not(versionId)))
+                .andExpect(jsonPath("$.versions[0].status", is(Status.SCHEDULED.name())))
+                .andExpect(jsonPath("$.versions[1].id", is(versionId)))
+                .andExpect(jsonPath("$.versions[1].status", is(Status.CANCELLED.name())));
+    }
+
+    @Test
+    public void readVersionPageWithFixedNumberOfStatements() throws Exception {
+        Query query = queryRepository.save(new Query(null, QUERY_NAME));
+        List<Installation> installations = installationRegistry.getActive();
+        for (int i = 0; i < 10; i++) {
+            Version version = versionRepository.save(new Version(null, QUERY_TXT, Hashing.sqlHash(QUERY_TXT),
+                    LocalDateTime.now().minusMinutes(10 - i), query, Collections.emptyList(), new RunOptions(), null, null,
+                    null, RunSummary.scheduled(N_SOURCES), null));
+            runRepository.saveAll(installations.stream()
+                    .map(installation -> new Run(installation, Status.DONE, version))
+                    .collect(Collectors.toList()));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            long small = countStatements(statistics, query, 2);
+            long large = countStatements(statistics, query, 10);
+            // the page, its query, the runs of all its versions and their installations, not a query per version
+            assertThat(small, lessThanOrEqualTo(3L + N_SOURCES));
+            assertThat(large, is(small));
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    private long countStatements(Statistics statistics, Query query, int pageSize) {
+        statistics.clear();
+        List<Version> versions = service.getQueryVersions(query, PageRequest.of(0, pageSize));
+        assertThat(versions, hasSize(pageSize));
+        // the runs are read out of the transaction like the response does
+        versions.forEach(version -> assertThat(version.getRuns(), hasSize(N_SOURCES)));
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    public void recoverRunsOfPreviousProcess() throws Exception {
+        Query query = queryRepository.save(new Query(null, QUERY_NAME));
+        Version version = versionRepository.save(new Version(null, QUERY_TXT, Hashing.sqlHash(QUERY_TXT), LocalDateTime.now(),
+                query, Collections.emptyList(), new RunOptions(), null, null, null, RunSummary.scheduled(N_SOURCES + 1), null));
+        // the previous process died executing the first run, the others are left in the queues
+        List<Installation> installations = installationRegistry.getActive();
+        runRepository.saveAll(Arrays.asList(
+                new Run(installations.get(0), Status.EXECUTING, version),
+                new Run(installations.get(0), Status.SCHEDULED, version),
+                new Run(installations.get(1), Status.SCHEDULED, version)));
+
+        service.recoverRuns();
+        waitForRuns(EXEC_TIME_COEFF);
+
+        this.mockMvc.perform(get("/query/showVersion/{id}", version.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(Status.INTERRUPTED.name())))
+                .andExpect(jsonPath("$.summary.interruptedCount", is(1)))
+                .andExpect(jsonPath("$.summary.doneCount", is(N_SOURCES)))
+                .andExpect(jsonPath("$.runs[0].status", is(Status.INTERRUPTED.name())))
+                .andExpect(jsonPath("$.runs[1].status", is(Status.DONE.name())))
+                .andExpect(jsonPath("$.runs[2].status", is(Status.DONE.name())));
+    }
+
+    @Test
+    public void submitAndAwaitVersion() throws Exception {
+        String submitted = this.mockMvc.perform(post("/query/submit")
+                .content(this.json(new NewQueryRequest(QUERY_NAME, QUERY_TXT)))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versionId", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        Integer versionId = JsonPath.read(submitted, "$.versionId");
+
+        MvcResult awaiting = this.mockMvc.perform(get("/query/await/{id}", versionId).param("timeout", "60"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(awaiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(versionId)))
+                .andExpect(jsonPath("$.status", is(Status.DONE.name())))
+                .andExpect(jsonPath("$.runs", hasSize(N_SOURCES)))
+                .andExpect(jsonPath("$.runs[*].status", everyItem(is(Status.DONE.name()))));
+
+        // without txt the latest version is executed again
+        this.mockMvc.perform(post("/query/submit")
+                .content(this.json(new NewQueryRequest(QUERY_NAME, null)))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versionId", not(versionId)));
+        this.mockMvc.perform(post("/query/submit")
+                .content(this.json(new NewQueryRequest("unknown", null)))
+                .contentType(contentType))
+                .andExpect(status().isNotFound());
+        waitForRuns(EXEC_TIME_COEFF);
+    }
+
+    @Test
+    public void streamRunTransitions() throws Exception {
+        String submitted = this.mockMvc.perform(post("/query/submit")
+                .content(this.json(new NewQueryRequest(QUERY_NAME, QUERY_TXT)))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Integer versionId = JsonPath.read(submitted, "$.versionId");
+
+        MvcResult streaming = this.mockMvc.perform(get("/query/events/{id}", versionId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        waitForRuns(EXEC_TIME_COEFF);
+
+        String events = streaming.getResponse().getContentAsString();
+        assertThat(events, containsString("event:run"));
+        assertThat(events, containsString("\"status\":\"EXECUTING\""));
+        assertThat(events, containsString("\"status\":\"DONE\""));
+        assertThat(events, containsString("event:done"));
+    }
+
+    @Test
+    public void runParameterizedVersion() throws Exception {
+        NewQueryRequest request = new NewQueryRequest(QUERY_NAME, "select cast(? as int) + cast(? as int) as result");
+        request.setBinds(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, null), Arrays.asList("5", 6)));
+        RunOptionsDto options = new RunOptionsDto();
+        options.setIterations(6);
+        request.setOptions(options);
+        String submitted = this.mockMvc.perform(post("/query/submit")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Integer versionId = JsonPath.read(submitted, "$.versionId");
+
+        MvcResult awaiting = this.mockMvc.perform(get("/query/await/{id}", versionId).param("timeout", "60"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(awaiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(Status.DONE.name())))
+                .andExpect(jsonPath("$.bindRows", is("1,2\n3,\n\"5\",6")))
+                .andExpect(jsonPath("$.runs[*].bindSetCount", everyItem(is(3))))
+                .andExpect(jsonPath("$.runs[0].stats.sampleCount", is(6)))
+                .andExpect(jsonPath("$.runs[0].bindSetStats", hasSize(3)))
+                .andExpect(jsonPath("$.runs[0].bindSetStats[*].sampleCount", everyItem(is(2))));
+
+        // the bind sets come from one source only
+        request.setBindQuery("select 1, 2");
+        this.mockMvc.perform(post("/query/submit")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void runSetupAndTeardown() throws Exception {
+        NewQueryRequest request = new NewQueryRequest(QUERY_NAME, "select * from tmp");
+        request.setSetup("create local temporary table tmp (id int); insert into tmp values (1), (2)");
+        request.setTeardown("drop table tmp");
+        String submitted = this.mockMvc.perform(post("/query/submit")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Integer versionId = JsonPath.read(submitted, "$.versionId");
+
+        MvcResult awaiting = this.mockMvc.perform(get("/query/await/{id}", versionId).param("timeout", "60"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(awaiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(Status.DONE.name())))
+                .andExpect(jsonPath("$.setup", is(request.getSetup())))
+                .andExpect(jsonPath("$.runs[*].setupTime", everyItem(notNullValue())))
+                .andExpect(jsonPath("$.runs[*].teardownError", everyItem(nullValue())));
+
+        // a failed setup fails the run, the body isn't executed
+        request.setSetup("select * from missing_table");
+        request.setTeardown(null);
+        submitted = this.mockMvc.perform(post("/query/submit")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        awaiting = this.mockMvc.perform(get("/query/await/{id}", (Integer) JsonPath.read(submitted, "$.versionId"))
+                .param("timeout", "60"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(awaiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(Status.FAILED.name())))
+                .andExpect(jsonPath("$.runs[*].setupError", everyItem(containsString("MISSING_TABLE"))))
+                .andExpect(jsonPath("$.runs[*].stats", everyItem(nullValue())));
+    }
+
+    @Test
+    public void runWithConnectionSettings() throws Exception {
+        NewQueryRequest request = new NewQueryRequest(QUERY_NAME, "select 1");
+        RunOptionsDto options = new RunOptionsDto();
+        options.setIterations(3);
+        options.setConnectionMode(ConnectionMode.FRESH);
+        options.setCacheMode(CacheMode.COLD);
+        options.setIsolation(IsolationLevel.SERIALIZABLE);
+        options.setReadOnly(true);
+        options.setAutoCommit(false);
+        request.setOptions(options);
+        String submitted = this.mockMvc.perform(post("/query/submit")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        MvcResult awaiting = this.mockMvc.perform(get("/query/await/{id}", (Integer) JsonPath.read(submitted, "$.versionId"))
+                .param("timeout", "60"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(awaiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(Status.DONE.name())))
+                .andExpect(jsonPath("$.options.connectionMode", is(ConnectionMode.FRESH.name())))
+                .andExpect(jsonPath("$.options.cacheMode", is(CacheMode.COLD.name())))
+                .andExpect(jsonPath("$.runs[*].stats.sampleCount", everyItem(is(3))));
+
+        this.mockMvc.perform(get("/installation/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.configured == true)].cacheReset", hasItem("SET @reset = 1")));
+    }
+
+    @Test
+    public void submitSuite() throws Exception {
+        NewSuiteRequest request = new NewSuiteRequest();
+        request.setName("nightly");
+        request.setQueries(Arrays.asList(new NewQueryRequest(QUERY_NAME, QUERY_TXT),
+                new NewQueryRequest("Test2", "select * from test2")));
+        String submitted = this.mockMvc.perform(post("/query/suite")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("nightly")))
+                .andExpect(jsonPath("$.status", is(Status.SCHEDULED.name())))
+                .andExpect(jsonPath("$.summary.runCount", is(2 * N_SOURCES)))
+                .andExpect(jsonPath("$.versions", hasSize(2)))
+                .andReturn().getResponse().getContentAsString();
+        Integer suiteId = JsonPath.read(submitted, "$.id");
+
+        // the versions are queued one after another on every installation
+        waitForRuns(EXEC_TIME_COEFF);
+        this.mockMvc.perform(get("/query/suite/{id}", suiteId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(Status.EXECUTING.name())))
+                .andExpect(jsonPath("$.versions[0].queryName", is(QUERY_NAME)))
+                .andExpect(jsonPath("$.versions[0].status", is(Status.DONE.name())))
+                .andExpect(jsonPath("$.versions[1].queryName", is("Test2")))
+                .andExpect(jsonPath("$.versions[1].status", is(Status.EXECUTING.name())));
+
+        waitForRuns(EXEC_TIME_COEFF);
+        this.mockMvc.perform(get("/query/suite/{id}", suiteId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(Status.DONE.name())))
+                .andExpect(jsonPath("$.summary.doneCount", is(2 * N_SOURCES)));
+        this.mockMvc.perform(get("/query/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        // every query of a suite needs its SQL
+        request.setQueries(Collections.singletonList(new NewQueryRequest(QUERY_NAME, null)));
+        this.mockMvc.perform(post("/query/suite")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void addDrainAndRemoveInstallation() throws Exception {
+        NewInstallationRequest request = new NewInstallationRequest();
+        request.setJdbcUrl("jdbc:h2:mem:added;DB_CLOSE_DELAY=-1");
+        request.setUsername("sa");
+        String added = this.mockMvc.perform(post("/installation/add")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(InstallationStatus.ACTIVE.name())))
+                .andExpect(jsonPath("$.configured", is(false)))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.read(added, "$.id");
+
+        // the same installation can't be added twice
+        this.mockMvc.perform(post("/installation/add")
+                .content(this.json(request))
+                .contentType(contentType))
+                .andExpect(status().isBadRequest());
+
+        // the new installation gets the runs of the next versions
+        String sql = "select 1 as result";
+        this.mockMvc.perform(post("/query/createOrUpdate")
+                .content(this.json(new NewQueryRequest(QUERY_NAME, sql)))
+                .contentType(contentType))
+                .andExpect(status().isOk());
+        waitForRuns(1);
+        this.mockMvc.perform(get("/query/findByName/{name}", QUERY_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versions[0].runs", hasSize(N_SOURCES + 1)))
+                .andExpect(jsonPath("$.versions[0].runs[" + N_SOURCES + "].installationId", is(id)))
+                .andExpect(jsonPath("$.versions[0].status", is(Status.DONE.name())));
+
+        // a drained installation doesn't get new runs
+        this.mockMvc.perform(post("/installation/drain/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(InstallationStatus.DRAINING.name())));
+        this.mockMvc.perform(get("/query/execute/{name}", QUERY_NAME));
+        waitForRuns(1);
+        this.mockMvc.perform(get("/query/findByName/{name}", QUERY_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versions[0].runs", hasSize(N_SOURCES)));
+
+        this.mockMvc.perform(delete("/installation/remove/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is(InstallationStatus.REMOVED.name())));
+        this.mockMvc.perform(get("/installation/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == " + id + ")].status", contains(InstallationStatus.REMOVED.name())))
+                .andExpect(jsonPath("$[?(@.status == 'ACTIVE')]", hasSize(N_SOURCES)));
+    }
+
     /* There is a separate SingleThread pool for each DB installation.
     * So, if there is a DB that works faster than others then the second query can start its execution on the DB
     * once the first query on that DB is done. Even when runs of the first query on other DBs are not ready.*/
@@ -338,7 +856,7 @@ public class BenchmarkServiceIntegrationTests {
                 .andExpect(jsonPath("$.versions[0].runs", empty()));
 
         // wait the run on the first DB is done for the first query
-        TimeUnit.SECONDS.sleep(EXEC_TIME_COEFF);
+        waitForRuns(EXEC_TIME_COEFF);
 
         this.mockMvc.perform(get("/query/findByName/{name}", QUERY_NAME))
                 .andExpect(status().isOk())
@@ -356,6 +874,10 @@ public class BenchmarkServiceIntegrationTests {
         TimeUnit.SECONDS.sleep(EXEC_TIME_COEFF);
     }
 
+    private static void waitForRuns(int secs) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(TimeUnit.SECONDS.toMillis(secs) + SETTLE_TIME);
+    }
+
     private HttpMessageConverter mappingJackson2HttpMessageConverter;
 
     private MediaType contentType = new MediaType(MediaType.APPLICATION_JSON.getType(),
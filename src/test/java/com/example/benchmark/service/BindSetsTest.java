@@ -0,0 +1,39 @@
+package com.example.benchmark.service;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BindSetsTest {
+
+    @Test
+    public void shouldParseTypedValues() {
+        List<List<Object>> rows = BindSets.parse("1, 2.5,\"a,\"\"b\"\"\"\r\n\n-3,,abc\n");
+
+        assertEquals(2, rows.size());
+        assertEquals(Arrays.asList(1L, new BigDecimal("2.5"), "a,\"b\""), rows.get(0));
+        assertEquals(-3L, rows.get(1).get(0));
+        assertNull(rows.get(1).get(1));
+        assertEquals("abc", rows.get(1).get(2));
+    }
+
+    @Test
+    public void shouldKeepValuesThroughFormat() {
+        List<List<Object>> rows = Arrays.asList(Arrays.asList(7L, "42", null), Arrays.asList(new BigDecimal("0.1"), "x\"y", ""));
+
+        String csv = BindSets.format(rows);
+
+        assertEquals("7,\"42\",\n0.1,\"x\"\"y\",\"\"", csv);
+        assertEquals(rows, BindSets.parse(csv));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnterminatedQuote() {
+        BindSets.parse("1,\"abc");
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.benchmark.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class HashingTest {
+
+    @Test
+    public void shouldIgnoreInsignificantWhitespace() {
+        assertEquals("select * from t where a = 1", Hashing.normalizeSql("  select *\n\tfrom t   where a = 1 ;\n"));
+        assertEquals(Hashing.sqlHash("select 1"), Hashing.sqlHash("select   1;"));
+    }
+
+    @Test
+    public void shouldKeepQuotedText() {
+        assertEquals("select 'a  b' from `my  t`", Hashing.normalizeSql("select  'a  b'  from  `my  t`"));
+        assertEquals("select 'it\\'s  ok'", Hashing.normalizeSql("select 'it\\'s  ok'"));
+        assertNotEquals(Hashing.sqlHash("select 'a b'"), Hashing.sqlHash("select 'a  b'"));
+    }
+}
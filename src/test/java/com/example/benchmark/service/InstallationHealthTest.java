@@ -0,0 +1,95 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class InstallationHealthTest {
+
+    private volatile boolean down;
+
+    private InstallationHealth health;
+
+    @Before
+    public void setUp() {
+        DelegatingDataSource dataSource = new DelegatingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:health;DB_CLOSE_DELAY=-1")) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (down) {
+                    throw new SQLException("Connection refused");
+                }
+                return super.getConnection();
+            }
+        };
+        health = new InstallationHealth(new SimpleMeterRegistry());
+        health.add(0, new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(health, "cacheTtl", 60_000L);
+        ReflectionTestUtils.setField(health, "pingTimeout", 1);
+        ReflectionTestUtils.setField(health, "failureThreshold", 1);
+        ReflectionTestUtils.setField(health, "retryInterval", 50L);
+    }
+
+    @Test
+    public void shouldCachePing() {
+        assertEquals(Health.up().build().getStatus(), health.health(0).getStatus());
+        down = true;
+        // the cached result is still used
+        assertEquals(Health.up().build().getStatus(), health.health(0).getStatus());
+        assertEquals(InstallationHealth.Circuit.CLOSED, health.getCircuit(0));
+    }
+
+    @Test
+    public void shouldHoldRunsTillInstallationIsBack() throws Exception {
+        down = true;
+        health.recordFailure(0);
+        assertEquals(InstallationHealth.Circuit.OPEN, health.getCircuit(0));
+
+        RunControl control = new RunControl(new Run(), 0);
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> health.awaitAvailable(0, control));
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertFalse(waiting.isDone());
+
+        down = false;
+        waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(InstallationHealth.Circuit.CLOSED, health.getCircuit(0));
+    }
+
+    @Test
+    public void shouldReleaseCancelledRun() throws Exception {
+        down = true;
+        health.recordFailure(0);
+
+        RunControl control = new RunControl(new Run(), 0);
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> health.awaitAvailable(0, control));
+        control.abort(Status.CANCELLED);
+        waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(InstallationHealth.Circuit.OPEN, health.getCircuit(0));
+    }
+
+    @Test
+    public void shouldForgetRemovedInstallation() {
+        down = true;
+        health.recordFailure(0);
+        health.remove(0);
+
+        assertEquals(InstallationHealth.Circuit.CLOSED, health.getCircuit(0));
+        assertEquals(Health.unknown().build().getStatus(), health.health(0).getStatus());
+        // runs of the removed installation aren't held
+        health.awaitAvailable(0, new RunControl(new Run(), 0));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.benchmark.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class InstallationMigrationTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private InstallationMigration migration;
+
+    @Before
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:migration;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        migration = new InstallationMigration(dataSource);
+        jdbcTemplate.execute("drop table if exists run");
+        jdbcTemplate.execute("drop table if exists installation");
+        jdbcTemplate.execute("create table installation (id bigint auto_increment primary key, " +
+                "jdbc_url varchar(255) not null, configured boolean not null, status varchar(255), created timestamp)");
+        // the run table of an earlier build after Hibernate has added the installation column
+        jdbcTemplate.execute("create table run (id bigint primary key, jdbc_url varchar(255) not null, " +
+                "fk_installation bigint)");
+    }
+
+    @Test
+    public void shouldMoveRunUrlsToInstallations() {
+        jdbcTemplate.update("insert into installation (jdbc_url, configured, status) " +
+                "values ('jdbc:h2:mem:a', true, 'ACTIVE')");
+        jdbcTemplate.update("insert into run (id, jdbc_url) values (1, 'jdbc:h2:mem:a'), (2, 'jdbc:h2:mem:b'), " +
+                "(3, 'jdbc:h2:mem:b')");
+
+        migration.migrate();
+
+        assertEquals(Arrays.asList("jdbc:h2:mem:a", "jdbc:h2:mem:b"),
+                jdbcTemplate.queryForList("select jdbc_url from installation order by id", String.class));
+        assertEquals(Arrays.asList("jdbc:h2:mem:a", "jdbc:h2:mem:b", "jdbc:h2:mem:b"),
+                jdbcTemplate.queryForList("select i.jdbc_url from run r join installation i on i.id = r.fk_installation " +
+                        "order by r.id", String.class));
+        assertEquals(Integer.valueOf(2), jdbcTemplate.queryForObject(
+                "select count(*) from installation where configured and status = 'ACTIVE'", Integer.class));
+
+        // the url column is gone, a second start does nothing
+        migration.migrate();
+        assertEquals(Integer.valueOf(2), jdbcTemplate.queryForObject("select count(*) from installation", Integer.class));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.LoadTestOptions;
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.Status;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LoadTestDriverTest {
+
+    private LoadTestDriver driver;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:load;DB_CLOSE_DELAY=-1"));
+        driver = new LoadTestDriver();
+        ReflectionTestUtils.setField(driver, "queryRunner", new QueryRunner());
+        ReflectionTestUtils.setField(driver, "stopTimeout", 30);
+        ReflectionTestUtils.setField(driver, "maxClients", 100);
+    }
+
+    @After
+    public void tearDown() {
+        driver.shutdown();
+    }
+
+    @Test
+    public void shouldKeepTargetQps() throws Exception {
+        Run run = new Run();
+        driver.drive(jdbcTemplate, "select 1", new RunOptions(), new LoadTestOptions(2, 50, 2), run);
+
+        // 50 executions per second for 2 seconds, the first execution of every client starts right away
+        assertEquals(100, run.getOperations(), 4);
+        assertEquals(0L, run.getErrors().longValue());
+        assertEquals(50, run.getThroughput(), 5);
+        assertEquals(run.getOperations().longValue(), run.getStats().getSampleCount().longValue());
+        assertNotNull(run.getHistogram());
+    }
+
+    @Test
+    public void shouldCountErrors() throws Exception {
+        Run run = new Run();
+        driver.drive(jdbcTemplate, "select * from missing_table", new RunOptions(), new LoadTestOptions(1, 10, 1), run);
+
+        assertTrue(run.getOperations() > 0);
+        assertEquals(run.getOperations(), run.getErrors());
+        assertEquals(1.0, run.getErrorRate(), 0.0);
+        assertNull(run.getStats());
+    }
+
+    @Test
+    public void shouldStopCancelledLoadTest() throws Exception {
+        Run run = new Run();
+        RunControl control = new RunControl(run, 0);
+        Thread canceller = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(300);
+            } catch (InterruptedException e) {
+                return;
+            }
+            control.abort(Status.CANCELLED);
+        });
+        canceller.start();
+        long startTime = System.nanoTime();
+        try {
+            driver.drive(jdbcTemplate, "select sum(x) from system_range(1, 100000000000)", null, null, new RunOptions(),
+                    new LoadTestOptions(2, null, 60), run, control);
+            fail("The load test should be cancelled");
+        } catch (CancellationException e) {
+            assertEquals(Status.CANCELLED, control.getAbortStatus());
+        }
+        // the executing statements are cancelled, the clients don't wait for the duration
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime) < 10);
+        canceller.join();
+    }
+
+    @Test
+    public void shouldTimeOutClientsStuckAfterDuration() throws Exception {
+        // a driver ignoring the query timeout and the cancellation
+        ReflectionTestUtils.setField(driver, "queryRunner", new QueryRunner() {
+            @Override
+            FetchResult iterate(Connection con, String sql, RunOptions options, RunControl control) {
+                long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (System.nanoTime() < until) {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(10);
+                    } catch (InterruptedException e) {
+                        // ignored
+                    }
+                }
+                return null;
+            }
+        });
+        RunOptions options = new RunOptions();
+        options.setTimeout(1);
+        Run run = new Run();
+        RunControl control = new RunControl(run, 0);
+        long startTime = System.nanoTime();
+        try {
+            driver.drive(jdbcTemplate, "select 1", null, null, options, new LoadTestOptions(2, null, 1), run, control);
+            fail("The load test should time out");
+        } catch (CancellationException e) {
+            assertEquals(Status.TIMED_OUT, control.getAbortStatus());
+        }
+        // the duration, the timeout and the wait for the clients to stop
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime) < 5);
+    }
+
+    @Test
+    public void shouldNotTakeConnectionsOfInstallationPool() throws Exception {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:load;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(1);
+        try {
+            // more clients than the installation pool has connections, one of them is taken by an isolated run
+            Run run = new Run();
+            try (Connection isolated = dataSource.getConnection()) {
+                driver.drive(new JdbcTemplate(dataSource), "select 1", new RunOptions(), new LoadTestOptions(3, 30, 1), run);
+            }
+            assertEquals(0L, run.getErrors().longValue());
+            assertTrue(run.getOperations() > 0);
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMoreClientsThanMax() throws Exception {
+        ReflectionTestUtils.setField(driver, "maxClients", 2);
+        driver.drive(jdbcTemplate, "select 1", new RunOptions(), new LoadTestOptions(3, null, 1), new Run());
+    }
+}
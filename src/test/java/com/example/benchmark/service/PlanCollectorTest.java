@@ -0,0 +1,69 @@
+package com.example.benchmark.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.Assert.*;
+
+public class PlanCollectorTest {
+
+    private final PlanCollector planCollector = new PlanCollector(100, new SimpleMeterRegistry());
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:plans;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("drop table if exists test_table");
+        jdbcTemplate.execute("create table test_table (id int primary key, txt varchar(100))");
+    }
+
+    @Test
+    public void shouldFingerprintPlanShape() {
+        PlanCollector.Plan byId = explain(0, "select * from test_table where id = 1");
+        PlanCollector.Plan byOtherId = explain(0, "select * from test_table where id = 2");
+        PlanCollector.Plan byTxt = explain(0, "select * from test_table where txt = 'a'");
+
+        assertTrue(byId.getText().contains("PRIMARY_KEY"));
+        assertEquals(byId.getFingerprint(), byOtherId.getFingerprint());
+        assertNotEquals(byId.getFingerprint(), byTxt.getFingerprint());
+    }
+
+    @Test
+    public void shouldCachePlansPerInstallation() {
+        String sql = "select * from test_table";
+        PlanCollector.Plan plan = explain(0, sql);
+
+        assertSame(plan, explain(0, sql));
+        assertNotSame(plan, explain(1, sql));
+    }
+
+    @Test
+    public void shouldCachePlansPerSetup() {
+        String sql = "select * from test_table";
+        PlanCollector.Plan plan = explain(0, sql);
+
+        // the setup of the session may change the plan
+        PlanCollector.Plan afterSetup = jdbcTemplate.execute(
+                (ConnectionCallback<PlanCollector.Plan>) con -> planCollector.explain(0, con, sql, "set @x = 1"));
+        assertNotSame(plan, afterSetup);
+    }
+
+    @Test
+    public void shouldIgnoreMySqlCosts() {
+        String plan = "{\"query_block\": {\"select_id\": 1, \"cost_info\": {\"query_cost\": \"1.20\"}, \"table\": {\"access_type\": \"ALL\", \"rows_examined_per_scan\": 10}}}";
+        String grown = "{\"query_block\": {\"select_id\": 1, \"cost_info\": {\"query_cost\": \"9.75\"}, \"table\": {\"access_type\": \"ALL\", \"rows_examined_per_scan\": 95}}}";
+
+        assertEquals(PlanCollector.fingerprint(plan), PlanCollector.fingerprint(grown));
+        assertNotEquals(PlanCollector.fingerprint(plan), PlanCollector.fingerprint(grown.replace("ALL", "ref")));
+    }
+
+    private PlanCollector.Plan explain(long installationId, String sql) {
+        return jdbcTemplate.execute(
+                (ConnectionCallback<PlanCollector.Plan>) con -> planCollector.explain(installationId, con, sql, null));
+    }
+}
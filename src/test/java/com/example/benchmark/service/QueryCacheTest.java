@@ -0,0 +1,132 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Query;
+import com.example.benchmark.model.Version;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class QueryCacheTest {
+
+    private static final long MAX_SIZE = 10;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    // the eviction runs on the calling thread, so the size is bounded right after the puts
+    private final QueryCache cache = new QueryCache(MAX_SIZE, 60, registry, Runnable::run);
+
+    // calls of the loaders, each stands for a read of the application DB
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void shouldLoadQueryOnce() {
+        Query query = new Query(1L, "selectAll");
+        Function<String, Query> loader = name -> {
+            loads.incrementAndGet();
+            return query;
+        };
+
+        assertSame(query, cache.getQuery("selectAll", loader));
+        assertSame(query, cache.getQuery("selectAll", loader));
+        assertSame(query, cache.getQuery("selectAll", loader));
+
+        assertEquals(1, loads.get());
+        assertEquals(2, gets("queries", "hit"), 0.0);
+        assertEquals(1, gets("queries", "miss"), 0.0);
+    }
+
+    @Test
+    public void shouldLoadMissingQueryAgain() {
+        Function<String, Query> loader = name -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        assertNull(cache.getQuery("unknown", loader));
+        assertNull(cache.getQuery("unknown", loader));
+        assertEquals(2, loads.get());
+
+        // a query created later is found
+        Query query = new Query(1L, "unknown");
+        cache.putQuery(query);
+        assertSame(query, cache.getQuery("unknown", loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void shouldReplaceLatestVersionWithNewOne() {
+        Query query = new Query(1L, "selectAll");
+        Version first = version(1L, query);
+        Function<Query, Version> loader = q -> {
+            loads.incrementAndGet();
+            return first;
+        };
+        assertSame(first, cache.getLatestVersion(query, loader).orElse(null));
+        assertSame(first, cache.getLatestVersion(query, loader).orElse(null));
+
+        // a new version of the query is cached when it is created, the old one isn't returned any more
+        Version second = version(2L, query);
+        cache.putLatestVersion(second);
+        assertSame(second, cache.getLatestVersion(query, loader).orElse(null));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void shouldEvictQueryWithItsLatestVersion() {
+        Query query = new Query(1L, "selectAll");
+        Query other = new Query(2L, "count");
+        cache.putQuery(query);
+        cache.putQuery(other);
+        cache.putLatestVersion(version(1L, query));
+        cache.putLatestVersion(version(2L, other));
+
+        cache.evict(query);
+        assertNull(cache.getQuery("selectAll", this::load));
+        assertFalse(cache.getLatestVersion(query, this::load).isPresent());
+        assertEquals(2, loads.get());
+        // the other query is kept
+        assertSame(other, cache.getQuery("count", this::load));
+        assertTrue(cache.getLatestVersion(other, this::load).isPresent());
+        assertEquals(2, loads.get());
+
+        cache.evictAll();
+        assertNull(cache.getQuery("count", this::load));
+        assertFalse(cache.getLatestVersion(other, this::load).isPresent());
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void shouldStayWithinMaxSize() {
+        for (long id = 0; id < MAX_SIZE * 10; id++) {
+            cache.putQuery(new Query(id, "query" + id));
+        }
+
+        assertTrue(size("queries") <= MAX_SIZE);
+        assertTrue(registry.get("cache.evictions").tag("cache", "queries").functionCounter().count() > 0);
+    }
+
+    private <K, V> V load(K key) {
+        loads.incrementAndGet();
+        return null;
+    }
+
+    private double gets(String cacheName, String result) {
+        return registry.get("cache.gets").tag("cache", cacheName).tag("result", result).functionCounter().count();
+    }
+
+    private double size(String cacheName) {
+        return registry.get("cache.size").tag("cache", cacheName).gauge().value();
+    }
+
+    private static Version version(Long id, Query query) {
+        Version version = new Version();
+        version.setId(id);
+        version.setQuery(query);
+        return version;
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.BindSource;
+import com.example.benchmark.model.CacheMode;
+import com.example.benchmark.model.ConnectionMode;
+import com.example.benchmark.model.FetchMode;
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.IsolationLevel;
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.RunOptions;
+import com.example.benchmark.model.SessionScript;
+import com.example.benchmark.model.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueryRunnerTest {
+
+    private static final String SQL = "select * from test_table";
+
+    // takes minutes on H2, checks for cancellation while scanning
+    private static final String LONG_SQL = "select sum(x) from system_range(1, 100000000000)";
+
+    private final QueryRunner queryRunner = new QueryRunner();
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(queryRunner, "planCollector", new PlanCollector(100, new SimpleMeterRegistry()));
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:runner;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("drop table if exists test_table");
+        jdbcTemplate.execute("create table test_table (id int primary key, txt varchar(100))");
+        for (int i = 0; i < 10; i++) {
+            jdbcTemplate.update("insert into test_table values (?, ?)", i, "aaa");
+        }
+    }
+
+    private static RunOptions options(int warmupIterations, int iterations, FetchMode fetchMode, Integer fetchSize,
+                                      Integer timeout) {
+        RunOptions options = new RunOptions();
+        options.setWarmupIterations(warmupIterations);
+        options.setIterations(iterations);
+        options.setFetchMode(fetchMode);
+        options.setFetchSize(fetchSize);
+        options.setTimeout(timeout);
+        return options;
+    }
+
+    @Test
+    public void shouldMeasureAllIterations() {
+        Run run = new Run();
+        queryRunner.measure(jdbcTemplate, SQL, options(2, 5, FetchMode.EXECUTE, null, null), run);
+
+        assertEquals(5, run.getSamples().size());
+        assertEquals(5, run.getStats().getSampleCount().intValue());
+        assertNull(run.getRowCount());
+    }
+
+    @Test
+    public void shouldDrainResultSet() {
+        Run run = new Run();
+        queryRunner.measure(jdbcTemplate, SQL, options(0, 3, FetchMode.FETCH, 2, null), run);
+
+        assertEquals(10L, run.getRowCount().longValue());
+        // 10 rows of an int and a 3 char string
+        assertEquals(110L, run.getBytesRead().longValue());
+        assertTrue(run.getFirstRowTime() > 0);
+        assertTrue(run.getStats().getMeanTime() >= run.getFirstRowTime() + run.getFetchTime());
+    }
+
+    @Test
+    public void shouldCycleThroughBindSets() {
+        Run run = new Run();
+        queryRunner.measure(jdbcTemplate, "select * from test_table where id = ?", new BindSource("1\n2\n3", null), null,
+                options(1, 6, FetchMode.FETCH, null, null), run, new RunControl(run, 0));
+
+        assertEquals(3, run.getBindSetCount().intValue());
+        assertEquals(6, run.getSamples().size());
+        assertEquals(1L, run.getRowCount().longValue());
+        assertEquals(2, Statistics.latencyStatsByBindSet(run.getSamples(), 3).get(2).getSampleCount().intValue());
+    }
+
+    @Test
+    public void shouldReadBindSetsOnInstallation() {
+        Run run = new Run();
+        queryRunner.measure(jdbcTemplate, "select * from test_table where id > ?",
+                new BindSource(null, "select id from test_table where id < 4"), null,
+                options(0, 4, FetchMode.EXECUTE, null, null), run, new RunControl(run, 0));
+
+        assertEquals(4, run.getBindSetCount().intValue());
+        assertEquals(4, run.getSamples().size());
+    }
+
+    @Test(expected = DataAccessException.class)
+    public void shouldFailWithoutBindSets() {
+        Run run = new Run();
+        queryRunner.measure(jdbcTemplate, "select * from test_table where id = ?",
+                new BindSource(null, "select id from test_table where id < 0"), null, new RunOptions(), run,
+                new RunControl(run, 0));
+    }
+
+    @Test
+    public void shouldRunScriptOnSameConnection() {
+        Run run = new Run();
+        // the temporary table is visible to its session only
+        SessionScript script = new SessionScript("create local temporary table tmp (id int); insert into tmp values (1);",
+                "drop table tmp");
+        queryRunner.measure(jdbcTemplate, "select * from tmp", null, script,
+                options(1, 3, FetchMode.FETCH, null, null), run, new RunControl(run, 0));
+
+        assertEquals(3, run.getSamples().size());
+        assertEquals(1L, run.getRowCount().longValue());
+        assertTrue(run.getSetupTime() > 0);
+        assertTrue(run.getTeardownTime() > 0);
+        assertNull(run.getSetupError());
+        assertNull(run.getTeardownError());
+    }
+
+    @Test
+    public void shouldReportSetupFailure() {
+        Run run = new Run();
+        SessionScript script = new SessionScript("set @x = 1; select * from missing_table", "set @x = null");
+        try {
+            queryRunner.measure(jdbcTemplate, SQL, null, script, new RunOptions(), run, new RunControl(run, 0));
+            fail("The setup should fail");
+        } catch (DataAccessException e) {
+            assertTrue(run.getSetupError().toUpperCase().contains("MISSING_TABLE"));
+        }
+        assertTrue(run.getSamples().isEmpty());
+        // the teardown is executed anyway
+        assertNotNull(run.getTeardownTime());
+        assertNull(run.getTeardownError());
+    }
+
+    @Test
+    public void shouldKeepMeasurementsOnTeardownFailure() {
+        Run run = new Run();
+        SessionScript script = new SessionScript(null, "drop table missing_table; set @x = 1");
+        queryRunner.measure(jdbcTemplate, SQL, null, script, new RunOptions(), run, new RunControl(run, 0));
+
+        assertEquals(1, run.getSamples().size());
+        assertTrue(run.getTeardownError().toUpperCase().contains("MISSING_TABLE"));
+    }
+
+    @Test
+    public void shouldResetCachesBeforeEveryIteration() {
+        jdbcTemplate.execute("create table if not exists reset_log (id int)");
+        jdbcTemplate.execute("delete from reset_log");
+        Run run = new Run();
+        run.setInstallation(new Installation());
+        run.getInstallation().setCacheReset("insert into reset_log values (1)");
+        RunOptions options = options(2, 3, FetchMode.EXECUTE, null, null);
+        options.setCacheMode(CacheMode.COLD);
+        queryRunner.measure(jdbcTemplate, SQL, options, run);
+
+        assertEquals(3, run.getSamples().size());
+        assertEquals(5, jdbcTemplate.queryForObject("select count(*) from reset_log", Integer.class).intValue());
+    }
+
+    @Test
+    public void shouldFailColdRunWithoutCacheReset() {
+        Run run = new Run();
+        RunOptions options = new RunOptions();
+        options.setCacheMode(CacheMode.COLD);
+        try {
+            queryRunner.measure(jdbcTemplate, SQL, options, run);
+            fail("The run should fail");
+        } catch (IllegalStateException e) {
+            assertNotNull(run.getSetupError());
+        }
+    }
+
+    @Test
+    public void shouldRollBackWithoutAutoCommit() {
+        Run run = new Run();
+        RunOptions options = options(0, 3, FetchMode.EXECUTE, null, null);
+        options.setAutoCommit(false);
+        options.setIsolation(IsolationLevel.SERIALIZABLE);
+        options.setConnectionMode(ConnectionMode.FRESH);
+        queryRunner.measure(jdbcTemplate, "update test_table set txt = 'bbb'", options, run);
+
+        assertEquals(3, run.getSamples().size());
+        // the updates of the run are rolled back
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from test_table where txt = 'bbb'", Integer.class)
+                .intValue());
+    }
+
+    @Test
+    public void shouldCountMeasuredStatements() {
+        QueryRunner countingRunner = new QueryRunner(Collections.singletonList(new H2CounterCollector()));
+        jdbcTemplate.execute("set query_statistics true");
+        try {
+            Run run = new Run();
+            countingRunner.measure(jdbcTemplate, SQL, options(2, 3, FetchMode.FETCH, null, null), run);
+
+            // the warmup iterations and the snapshot queries are not counted
+            assertEquals(3L, run.getCounters().get("statements").longValue());
+            assertEquals(30L, run.getCounters().get("rows").longValue());
+        } finally {
+            jdbcTemplate.execute("set query_statistics false");
+        }
+    }
+
+    @Test
+    public void shouldNotTimeOutRunWithoutConnection() throws InterruptedException {
+        Run run = new Run();
+        RunControl control = new RunControl(run, 0);
+        JdbcTemplate unreachable = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE"));
+        try {
+            queryRunner.measure(unreachable, SQL, options(0, 1, FetchMode.EXECUTE, null, 1), run, control);
+            fail("The run should fail without a connection");
+        } catch (DataAccessException e) {
+            // the failed run isn't aborted later by its timer
+            TimeUnit.MILLISECONDS.sleep(1_500);
+            assertFalse(control.isAborted());
+        }
+    }
+
+    @Test
+    public void shouldTimeOutLongQuery() {
+        Run run = new Run();
+        RunControl control = new RunControl(run, 0);
+        long startTime = System.nanoTime();
+        try {
+            queryRunner.measure(jdbcTemplate, LONG_SQL, options(0, 1, FetchMode.EXECUTE, null, 1), run, control);
+            fail("The query should time out");
+        } catch (DataAccessException e) {
+            assertEquals(Status.TIMED_OUT, control.getAbortStatus());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime) < 10);
+    }
+
+    @Test
+    public void shouldCancelExecutingQuery() throws InterruptedException {
+        Run run = new Run();
+        RunControl control = new RunControl(run, 0);
+        Thread canceller = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(300);
+            } catch (InterruptedException e) {
+                return;
+            }
+            control.abort(Status.CANCELLED);
+        });
+        canceller.start();
+        try {
+            queryRunner.measure(jdbcTemplate, LONG_SQL, options(0, 1, FetchMode.EXECUTE, null, null), run, control);
+            fail("The query should be cancelled");
+        } catch (DataAccessException e) {
+            assertEquals(Status.CANCELLED, control.getAbortStatus());
+        }
+        canceller.join();
+    }
+
+    @Test(expected = CancellationException.class)
+    public void shouldNotStartAbortedRun() {
+        Run run = new Run();
+        RunControl control = new RunControl(run, 0);
+        control.abort(Status.CANCELLED);
+        queryRunner.measure(jdbcTemplate, SQL, new RunOptions(), run, control);
+    }
+
+    @Test
+    public void shouldExplainOnRunConnectionAfterSetup() {
+        // the table exists only in the session of the run
+        SessionScript script = new SessionScript("create local temporary table tmp_ids (id int primary key)", null);
+        RunOptions options = options(0, 2, FetchMode.EXECUTE, null, null);
+        options.setExplain(true);
+        Run run = new Run();
+        queryRunner.measure(jdbcTemplate, "select * from tmp_ids where id = 1", null, script, options, run,
+                new RunControl(run, 0));
+
+        assertTrue(run.getPlan().contains("PRIMARY_KEY"));
+        assertNotNull(run.getPlanFingerprint());
+        assertEquals(2, run.getSamples().size());
+    }
+
+    @Test
+    public void shouldMeasureRunWhichCantBeExplained() {
+        RunOptions options = options(0, 2, FetchMode.EXECUTE, null, null);
+        options.setExplain(true);
+        Run run = new Run();
+        queryRunner.measure(jdbcTemplate, "call 1", options, run);
+
+        assertNull(run.getPlan());
+        assertEquals(2, run.getSamples().size());
+    }
+}
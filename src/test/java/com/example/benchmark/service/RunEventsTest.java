@@ -0,0 +1,115 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Version;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class RunEventsTest {
+
+    private final RunEvents runEvents = new RunEvents();
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(runEvents, "threads", 2);
+        ReflectionTestUtils.setField(runEvents, "queueCapacity", 3);
+        runEvents.init();
+    }
+
+    @After
+    public void tearDown() {
+        released.countDown();
+        runEvents.shutdown();
+    }
+
+    @Test
+    public void shouldNotHoldPublisherOnSlowListener() throws InterruptedException {
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        runEvents.subscribe(1L, event -> {
+            awaitReleased();
+            received.add(event.getRunId());
+        }, () -> {});
+
+        long start = System.nanoTime();
+        runEvents.publish(run(1L, Status.EXECUTING));
+        runEvents.publish(run(2L, Status.EXECUTING));
+        runEvents.publish(run(3L, Status.EXECUTING));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertTrue(received.isEmpty());
+
+        // delivered in the order of the transitions once the client is back
+        released.countDown();
+        await(() -> received.size() == 3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), received);
+    }
+
+    @Test
+    public void shouldDropSubscriberWhichCantKeepUp() throws InterruptedException {
+        CountDownLatch dropped = new CountDownLatch(1);
+        List<Long> slow = Collections.synchronizedList(new ArrayList<>());
+        List<Long> fast = Collections.synchronizedList(new ArrayList<>());
+        runEvents.subscribe(1L, event -> {
+            awaitReleased();
+            slow.add(event.getRunId());
+        }, dropped::countDown);
+        // the queue of the fast subscriber has the same capacity, it must not be dropped
+        AtomicBoolean fastDropped = new AtomicBoolean();
+        runEvents.subscribe(1L, event -> fast.add(event.getRunId()), () -> fastDropped.set(true));
+
+        // one event is held by the slow listener, three fill its queue and the last one overflows it
+        for (long id = 1; id <= 5; id++) {
+            runEvents.publish(run(id, Status.EXECUTING));
+            int published = (int) id;
+            await(() -> fast.size() == published);
+        }
+        assertTrue(dropped.await(5, TimeUnit.SECONDS));
+
+        released.countDown();
+        runEvents.publish(run(6L, Status.EXECUTING));
+        await(() -> fast.size() == 6);
+        assertFalse("The fast subscriber has been dropped", fastDropped.get());
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L), fast);
+        // the dropped subscriber gets nothing after the event it was holding
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(Collections.singletonList(1L), slow);
+    }
+
+    private void awaitReleased() {
+        try {
+            released.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Run run(Long id, Status status) {
+        Version version = new Version();
+        version.setId(1L);
+        Run run = new Run(null, status, version);
+        run.setId(id);
+        return run;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
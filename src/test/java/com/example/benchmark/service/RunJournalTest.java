@@ -0,0 +1,184 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import org.hibernate.StaleStateException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.OptimisticLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class RunJournalTest {
+
+    // the runs of every successful write
+    private final List<List<Run>> written = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile boolean down;
+
+    private volatile Long deletedRunId;
+
+    private RunJournal journal;
+
+    @Before
+    public void setUp() {
+        journal = new RunJournal() {
+            @Override
+            void write(List<Run> runs) {
+                if (down) {
+                    throw new IllegalStateException("Connection is not available, request timed out after 30000ms");
+                }
+                if (runs.stream().anyMatch(run -> run.getId().equals(deletedRunId))) {
+                    throw new OptimisticLockException(new StaleStateException(
+                            "Batch update returned unexpected row count from update [0]; actual row count: 0; expected: 1"));
+                }
+                written.add(runs);
+            }
+        };
+        ReflectionTestUtils.setField(journal, "flushInterval", 60_000L);
+        ReflectionTestUtils.setField(journal, "batchSize", 3);
+        ReflectionTestUtils.setField(journal, "retryInterval", 50L);
+        ReflectionTestUtils.setField(journal, "maxRetryInterval", 200L);
+        ReflectionTestUtils.setField(journal, "awaitTimeout", 5_000L);
+        journal.init();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        down = false;
+        journal.shutdown();
+    }
+
+    @Test
+    public void shouldWriteLatestStatesInBatches() throws InterruptedException {
+        journal.record(run(1, Status.SCHEDULED));
+        journal.record(run(1, Status.EXECUTING));
+        journal.record(run(2, Status.SCHEDULED));
+        assertTrue(written.isEmpty());
+
+        // the third pending run fills the batch
+        journal.record(run(3, Status.SCHEDULED));
+        await(() -> !written.isEmpty());
+        assertEquals(1, written.size());
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(written.get(0)));
+        assertEquals(Status.EXECUTING, written.get(0).get(0).getStatus());
+    }
+
+    @Test
+    public void shouldRetryStatesAfterFailedWrite() throws InterruptedException {
+        down = true;
+        journal.record(run(1, Status.DONE));
+        journal.awaitFlush();
+        assertTrue(written.isEmpty());
+
+        // recorded during the outage, only its latest state is written
+        journal.record(run(2, Status.EXECUTING));
+        journal.record(run(2, Status.DONE));
+        down = false;
+        // the pause after the failure is over within the max retry interval
+        TimeUnit.MILLISECONDS.sleep(250);
+        journal.awaitFlush();
+
+        List<Run> runs = written.stream().flatMap(List::stream).collect(toList());
+        assertEquals(Arrays.asList(1L, 2L), ids(runs));
+        assertTrue(runs.stream().allMatch(run -> run.getStatus() == Status.DONE));
+    }
+
+    @Test
+    public void shouldDropStateOfDeletedRunOnly() throws InterruptedException {
+        deletedRunId = 2L;
+        journal.record(run(1, Status.DONE));
+        journal.record(run(2, Status.DONE));
+        journal.awaitFlush();
+
+        assertEquals(Collections.singletonList(1L), ids(written.stream().flatMap(List::stream).collect(toList())));
+        // nothing is left to retry
+        written.clear();
+        deletedRunId = null;
+        TimeUnit.MILLISECONDS.sleep(250);
+        journal.awaitFlush();
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void shouldDrainOnShutdown() throws InterruptedException {
+        journal.record(run(1, Status.DONE));
+        journal.record(run(2, Status.FAILED));
+        assertTrue(written.isEmpty());
+
+        journal.shutdown();
+        assertEquals(Arrays.asList(1L, 2L), ids(written.stream().flatMap(List::stream).collect(toList())));
+    }
+
+    @Test
+    public void shouldDrainOnShutdownDuringRetryPause() throws InterruptedException {
+        ReflectionTestUtils.setField(journal, "retryInterval", 60_000L);
+        ReflectionTestUtils.setField(journal, "maxRetryInterval", 60_000L);
+        down = true;
+        journal.record(run(1, Status.DONE));
+        journal.awaitFlush();
+        down = false;
+
+        journal.shutdown();
+        assertEquals(Collections.singletonList(1L), ids(written.stream().flatMap(List::stream).collect(toList())));
+    }
+
+    @Test
+    public void shouldNotWaitForWriterWhenStatesAreWritten() throws InterruptedException {
+        journal.record(run(1, Status.DONE));
+        journal.awaitFlush();
+        assertEquals(1, written.size());
+
+        // the writer is busy, a reader has nothing to wait for
+        CountDownLatch busy = new CountDownLatch(1);
+        ScheduledExecutorService writer = (ScheduledExecutorService) ReflectionTestUtils.getField(journal, "writer");
+        writer.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long startTime = System.nanoTime();
+        journal.awaitFlush();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 1_000);
+        busy.countDown();
+    }
+
+    @Test
+    public void shouldIgnoreStatesRecordedAfterShutdown() throws InterruptedException {
+        journal.shutdown();
+        journal.record(run(1, Status.DONE));
+        journal.awaitFlush();
+        assertTrue(written.isEmpty());
+    }
+
+    private static Run run(long id, Status status) {
+        Run run = new Run(null, status, null);
+        run.setId(id);
+        return run;
+    }
+
+    private static List<Long> ids(List<Run> runs) {
+        return runs.stream().map(Run::getId).collect(toList());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class RunSchedulerTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final RunScheduler scheduler = new RunScheduler(registry);
+
+    // the runs block till the test releases them
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // the threads of the runs and load tests waiting for an installation
+    private final ExecutorService waiting = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        scheduler.shutdown();
+        waiting.shutdownNow();
+    }
+
+    @Test
+    public void shouldLimitActiveRunsToConcurrency() throws Exception {
+        scheduler.add(1, 2, 100);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(6);
+        for (int i = 0; i < 6; i++) {
+            scheduler.submit(1, () -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                awaitRelease();
+                active.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        await(() -> active.get() == 2);
+        assertEquals(2, gauge("benchmark.queue.active", 1), 0.0);
+        assertEquals(4, gauge("benchmark.queue.depth", 1), 0.0);
+        assertEquals(4, scheduler.getQueueDepth(1));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxActive.get());
+        assertEquals(0, scheduler.getQueueDepth(1));
+    }
+
+    @Test
+    public void shouldRunExclusiveInstallationInOrder() throws Exception {
+        scheduler.add(1, 1, 100);
+        // another installation doesn't wait for the first one
+        scheduler.add(2, 1, 100);
+        scheduler.submit(1, this::awaitRelease);
+        CountDownLatch other = new CountDownLatch(1);
+        scheduler.submit(2, other::countDown);
+        assertTrue(other.await(5, TimeUnit.SECONDS));
+
+        List<Integer> started = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            int run = i;
+            scheduler.submit(1, () -> {
+                started.add(run);
+                done.countDown();
+            });
+        }
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.range(0, 50).boxed().collect(Collectors.toList()), started);
+    }
+
+    @Test
+    public void shouldRejectRunsOverQueueCapacity() throws Exception {
+        scheduler.add(1, 1, 2);
+        CountDownLatch executing = new CountDownLatch(1);
+        scheduler.submit(1, () -> {
+            executing.countDown();
+            awaitRelease();
+        });
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        scheduler.submit(1, () -> {});
+        scheduler.submit(1, () -> {});
+
+        try {
+            scheduler.submit(1, () -> {});
+            fail("The queue should be full");
+        } catch (RejectedExecutionException e) {
+            assertEquals(2, gauge("benchmark.queue.depth", 1), 0.0);
+        }
+    }
+
+    @Test
+    public void shouldDropQueuedRun() throws Exception {
+        scheduler.add(1, 1, 10);
+        scheduler.submit(1, this::awaitRelease);
+        Runnable queued = () -> {};
+        scheduler.submit(1, queued);
+        await(() -> scheduler.getQueueDepth(1) == 1);
+
+        assertTrue(scheduler.remove(1, queued));
+        assertEquals(0, scheduler.getQueueDepth(1));
+        assertFalse(scheduler.remove(1, queued));
+    }
+
+    @Test
+    public void shouldRejectRunsOfRemovedInstallation() throws Exception {
+        scheduler.add(1, 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(1, this::awaitRelease);
+        scheduler.submit(1, started::countDown);
+
+        ThreadPoolExecutor executor = scheduler.remove(1);
+        assertNotNull(executor);
+        try {
+            scheduler.submit(1, () -> {});
+            fail("The installation is removed");
+        } catch (RejectedExecutionException e) {
+            assertEquals(0, scheduler.getQueueDepth(1));
+        }
+        assertNull(scheduler.remove(1));
+
+        // the queued run is still started
+        release.countDown();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldHoldRunsWhileLoadTestIsDriven() throws Exception {
+        scheduler.add(1, 2, 100);
+        assertTrue(scheduler.acquire(1, false, control()));
+
+        // the load test waits for the executing run, the run coming after it waits for the load test
+        Future<Boolean> loadTest = waiting.submit(() -> scheduler.acquire(1, true, control()));
+        TimeUnit.MILLISECONDS.sleep(200);
+        Future<Boolean> next = waiting.submit(() -> scheduler.acquire(1, false, control()));
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertFalse(loadTest.isDone());
+        assertFalse(next.isDone());
+
+        scheduler.release(1, false);
+        assertTrue(loadTest.get(5, TimeUnit.SECONDS));
+        assertEquals(1, gauge("benchmark.queue.held", 1), 0.0);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertFalse(next.isDone());
+
+        scheduler.release(1, true);
+        assertTrue(next.get(5, TimeUnit.SECONDS));
+        assertEquals(0, gauge("benchmark.queue.held", 1), 0.0);
+    }
+
+    @Test
+    public void shouldReleaseAbortedRunWaitingForLoadTest() throws Exception {
+        scheduler.add(1, 1, 100);
+        assertTrue(scheduler.acquire(1, true, control()));
+
+        RunControl control = control();
+        Future<Boolean> run = waiting.submit(() -> scheduler.acquire(1, false, control));
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertFalse(run.isDone());
+        control.abort(Status.CANCELLED);
+        assertFalse(run.get(5, TimeUnit.SECONDS));
+    }
+
+    private static RunControl control() {
+        return new RunControl(new Run(), 1);
+    }
+
+    private double gauge(String name, long installationId) {
+        return registry.get(name).tag("installation", String.valueOf(installationId)).gauge().value();
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.benchmark.service;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SqlScriptsTest {
+
+    @Test
+    public void shouldSplitStatements() {
+        assertEquals(Arrays.asList("SET optimizer_switch='index_merge=off;mrr=on'", "select 'a\\';b'", "select `c;d`"),
+                SqlScripts.split(" SET optimizer_switch='index_merge=off;mrr=on';\n select 'a\\';b';;select `c;d`;\n"));
+    }
+
+    @Test
+    public void shouldIgnoreEmptyScript() {
+        assertTrue(SqlScripts.split(null).isEmpty());
+        assertTrue(SqlScripts.split(" ; \n").isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.LatencyStats;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StatisticsTest {
+
+    @Test
+    public void shouldCalculateLatencyStats() {
+        List<Long> samples = LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList());
+        Collections.shuffle(samples);
+
+        LatencyStats stats = Statistics.latencyStats(samples);
+
+        assertEquals(100, stats.getSampleCount().intValue());
+        assertEquals(1L, stats.getMinTime().longValue());
+        assertEquals(51L, stats.getMeanTime().longValue());
+        assertEquals(50L, stats.getP50Time().longValue());
+        assertEquals(90L, stats.getP90Time().longValue());
+        assertEquals(99L, stats.getP99Time().longValue());
+        assertEquals(100L, stats.getMaxTime().longValue());
+        assertEquals(28.866, stats.getStdDevTime(), 0.001);
+    }
+
+    @Test
+    public void shouldHandleSingleSample() {
+        LatencyStats stats = Statistics.latencyStats(Arrays.asList(42L));
+
+        assertEquals(42L, stats.getMinTime().longValue());
+        assertEquals(42L, stats.getP99Time().longValue());
+        assertEquals(0.0, stats.getStdDevTime(), 0.0);
+    }
+
+    @Test
+    public void shouldReturnNullForNoSamples() {
+        assertNull(Statistics.latencyStats(Collections.emptyList()));
+    }
+
+    @Test
+    public void shouldFindSignificantDifference() {
+        List<Long> x = LongStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+        List<Long> y = LongStream.rangeClosed(11, 20).boxed().collect(Collectors.toList());
+
+        // U = 0, z = 49.5 / sqrt(175)
+        assertEquals(0.000183, Statistics.mannWhitneyPValue(x, y), 0.000005);
+        assertEquals(Statistics.mannWhitneyPValue(x, y), Statistics.mannWhitneyPValue(y, x), 0.0);
+    }
+
+    @Test
+    public void shouldNotFindDifferenceInSameSamples() {
+        List<Long> x = Arrays.asList(5L, 5L, 5L, 5L);
+
+        assertEquals(1.0, Statistics.mannWhitneyPValue(x, x), 0.0);
+        assertEquals(1.0, Statistics.mannWhitneyPValue(x, Collections.emptyList()), 0.0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.benchmark.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubmissionSequencerTest {
+
+    private static final int N_THREADS = 16;
+    private static final int N_SUBMISSIONS = 2_000;
+
+    private final SubmissionSequencer sequencer = new SubmissionSequencer();
+
+    private final ExecutorService submitters = Executors.newFixedThreadPool(N_THREADS);
+
+    @After
+    public void tearDown() {
+        submitters.shutdownNow();
+        sequencer.shutdown();
+    }
+
+    @Test
+    public void shouldDispatchInTicketOrder() throws Exception {
+        List<Long> dispatched = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(N_SUBMISSIONS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < N_SUBMISSIONS; i++) {
+            submitters.execute(() -> {
+                try {
+                    start.await();
+                    long ticket = sequencer.ticket();
+                    // simulates persistence taking different time, later tickets are often ready first
+                    TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextInt(500));
+                    sequencer.dispatch(ticket, () -> {
+                        dispatched.add(ticket);
+                        done.countDown();
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+
+        done.await(30, TimeUnit.SECONDS);
+        assertEquals(LongStream.range(0, N_SUBMISSIONS).boxed().collect(Collectors.toList()), dispatched);
+    }
+
+    @Test
+    public void shouldNotHoldBackLaterTicketsAfterSkip() throws Exception {
+        List<Long> dispatched = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+
+        long first = sequencer.ticket();
+        long failed = sequencer.ticket();
+        long last = sequencer.ticket();
+
+        sequencer.dispatch(last, () -> {
+            dispatched.add(last);
+            done.countDown();
+        });
+        sequencer.dispatch(first, () -> {
+            dispatched.add(first);
+            done.countDown();
+        });
+        sequencer.skip(failed);
+
+        done.await(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList(first, last), dispatched);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Installation;
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Version;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+public class VersionComparatorTest {
+
+    private final VersionComparator comparator = new VersionComparator();
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(comparator, "regressionThreshold", 0.05);
+        ReflectionTestUtils.setField(comparator, "significance", 0.05);
+    }
+
+    @Test
+    public void shouldDetectRegression() {
+        Version baseline = version(1L, run("db0", samples(100, 130)), run("db1", samples(100, 130)));
+        // 20% slower on db0, the same on db1
+        Version candidate = version(2L, run("db0", samples(120, 150)), run("db1", samples(100, 130)));
+
+        VersionComparison comparison = comparator.compare(candidate, baseline, null);
+
+        assertTrue(comparison.isComplete());
+        assertTrue(comparison.isRegression());
+        RunComparison db0 = comparison.getInstallations().get(0);
+        assertTrue(db0.isRegression());
+        assertEquals(115.0 / 135, db0.getSpeedup(), 0.001);
+        assertTrue(db0.getPValue() < 0.05);
+        assertFalse(comparison.getInstallations().get(1).isRegression());
+    }
+
+    @Test
+    public void shouldTolerateSlowdownBelowThreshold() {
+        Version baseline = version(1L, run("db0", samples(100, 130)));
+        Version candidate = version(2L, run("db0", samples(120, 150)));
+
+        VersionComparison comparison = comparator.compare(candidate, baseline, 0.5);
+
+        assertFalse(comparison.isRegression());
+        assertEquals(0.5, comparison.getThreshold(), 0.0);
+    }
+
+    @Test
+    public void shouldSkipRunsWithoutSamples() {
+        Run scheduled = run("db1", samples(100, 130));
+        scheduled.setStatus(Status.SCHEDULED);
+        Version baseline = version(1L, run("db0", samples(100, 130)), run("db1", samples(100, 130)));
+        Version candidate = version(2L, run("db0", samples(100, 130)), scheduled);
+
+        VersionComparison comparison = comparator.compare(candidate, baseline, null);
+
+        assertFalse(comparison.isComplete());
+        assertFalse(comparison.isRegression());
+        assertTrue(comparison.getInstallations().get(0).isComparable());
+        assertFalse(comparison.getInstallations().get(1).isComparable());
+    }
+
+    @Test
+    public void shouldDetectPlanChange() {
+        Run before = run("db0", samples(100, 130));
+        before.setPlanFingerprint("a");
+        Run after = run("db0", samples(100, 130));
+        after.setPlanFingerprint("b");
+
+        VersionComparison comparison = comparator.compare(version(2L, after), version(1L, before), null);
+
+        assertTrue(comparison.isPlanChanged());
+        assertTrue(comparison.getInstallations().get(0).getPlanChanged());
+        assertNull(comparator.compare(version(2L, after), version(1L, run("db0", samples(100, 130))), null)
+                .getInstallations().get(0).getPlanChanged());
+    }
+
+    private static List<Long> samples(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+
+    private static Run run(String jdbcUrl, List<Long> samples) {
+        Installation installation = new Installation();
+        installation.setId((long) jdbcUrl.hashCode());
+        installation.setJdbcUrl(jdbcUrl);
+        Run run = new Run(installation, Status.DONE, null);
+        run.setSamples(samples);
+        return run;
+    }
+
+    private static Version version(Long id, Run... runs) {
+        Version version = new Version();
+        version.setId(id);
+        version.setRuns(Arrays.asList(runs));
+        return version;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.benchmark.service;
+
+import com.example.benchmark.model.Run;
+import com.example.benchmark.model.Status;
+import com.example.benchmark.model.Version;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class VersionProgressTest {
+
+    private final RunEvents runEvents = new RunEvents();
+
+    private final List<RunEvent> received = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(runEvents, "threads", 1);
+        ReflectionTestUtils.setField(runEvents, "queueCapacity", 10);
+        runEvents.init();
+    }
+
+    @After
+    public void tearDown() {
+        runEvents.shutdown();
+    }
+
+    @Test
+    public void shouldFinishWhenAllRunsAreFinished() throws InterruptedException {
+        Version version = new Version();
+        version.setId(1L);
+        Run first = run(1L, version, Status.SCHEDULED);
+        Run second = run(2L, version, Status.DONE);
+
+        VersionProgress progress = new VersionProgress(1L, received::add, runEvents);
+        runEvents.subscribe(1L, progress, progress::close);
+        progress.start(Arrays.asList(first, second));
+        assertEquals(2, received.size());
+        assertFalse(progress.getFinished().isDone());
+
+        first.setStatus(Status.EXECUTING);
+        runEvents.publish(first);
+        // the same state isn't sent twice
+        runEvents.publish(first);
+        await(() -> received.size() == 3);
+
+        first.setStatus(Status.FAILED);
+        runEvents.publish(first);
+        await(() -> progress.getFinished().isDone());
+        assertEquals(4, received.size());
+        assertEquals(Status.EXECUTING, received.get(2).getStatus());
+        assertEquals(Status.FAILED, received.get(3).getStatus());
+
+        // nothing is sent after the version is finished
+        runEvents.publish(first);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(4, received.size());
+    }
+
+    @Test
+    public void shouldKeepTransitionsNewerThanReadRuns() throws InterruptedException {
+        Version version = new Version();
+        version.setId(1L);
+        Run run = run(1L, version, Status.SCHEDULED);
+
+        VersionProgress progress = new VersionProgress(1L, received::add, runEvents);
+        runEvents.subscribe(1L, progress, progress::close);
+        // the run is done between the subscription and the read of the runs
+        Run done = run(1L, version, Status.DONE);
+        runEvents.publish(done);
+        await(() -> received.size() == 1);
+        progress.start(Arrays.asList(run));
+
+        assertEquals(1, received.size());
+        assertTrue(progress.getFinished().isDone());
+    }
+
+    @Test
+    public void shouldIgnoreTransitionsDeliveredAfterRunIsFinished() throws InterruptedException {
+        Version version = new Version();
+        version.setId(1L);
+        Run first = run(1L, version, Status.DONE);
+        Run second = run(2L, version, Status.EXECUTING);
+
+        VersionProgress progress = new VersionProgress(1L, received::add, runEvents);
+        runEvents.subscribe(1L, progress, progress::close);
+        progress.start(Arrays.asList(first, second));
+        // a transition queued before the runs were read
+        progress.accept(RunEvent.of(run(1L, version, Status.EXECUTING)));
+
+        assertEquals(2, received.size());
+        assertEquals(Status.DONE, received.get(0).getStatus());
+        assertFalse(progress.getFinished().isDone());
+    }
+
+    private static Run run(Long id, Version version, Status status) {
+        Run run = new Run(null, status, version);
+        run.setId(id);
+        return run;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}